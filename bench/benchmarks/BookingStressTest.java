@@ -0,0 +1,227 @@
+package benchmarks;
+
+import services.ScheduleService;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code BookingStressTest} class checks that concurrent bookings never double-book a slot.
+ * <p>
+ * It books from many threads at once, first all on a single slot and then over a spread of
+ * slots of every doctor, while another thread keeps compacting the journal into the schedule
+ * file. Every slot must end up with exactly one successful booking, held by the patient whose
+ * booking succeeded, both in memory and after the schedule is reloaded from its files.
+ * <p>
+ * The schedule is read from and written to {@code data/} in the working directory, so the
+ * parent process writes a dataset with {@link DatasetGenerator} and runs the test in a child
+ * JVM started in that dataset's directory. The process exits with status 1 if a check fails:
+ * <pre>
+ * java -cp bench-bin benchmarks.BookingStressTest [--threads 64] [--rounds 5]
+ * </pre>
+ */
+public final class BookingStressTest {
+    private static final Path DIRECTORY = Paths.get("bench-data", "stress"); // Where the test dataset is written
+    private static final int DOCTORS = 8; // Doctors in the test dataset
+    private static final int DAYS = 14; // Days of schedule in the test dataset
+    private static final int SPREAD_SLOTS = 1000; // Slots booked in the spread test
+
+    private final int threads;
+    private final int rounds;
+    private final ScheduleService scheduleService = ScheduleService.getInstance();
+    private int failures;
+
+    private BookingStressTest(int threads, int rounds) {
+        this.threads = threads;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Writes the test dataset and runs the test against it in a child JVM, or, when started
+     * with {@code --run}, runs the test against the dataset in the working directory.
+     *
+     * @param args the command line options
+     * @throws Exception if the dataset cannot be written or the test cannot be run
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Math.max(64, 8 * Runtime.getRuntime().availableProcessors());
+        int rounds = 5;
+        boolean run = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--rounds" -> rounds = Integer.parseInt(args[++i]);
+                case "--run" -> run = true;
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (run) {
+            System.exit(new BookingStressTest(threads, rounds).runAll() ? 0 : 1);
+        }
+        ServiceBenchmarks.deleteRecursively(DIRECTORY);
+        new DatasetGenerator(42, DOCTORS, 1, 10, DAYS, 0.0, LocalDate.now()).generate(DIRECTORY.resolve("data"));
+        List<String> command = List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", ServiceBenchmarks.absoluteClassPath(), BookingStressTest.class.getName(),
+                "--run", "--threads", Integer.toString(threads), "--rounds", Integer.toString(rounds));
+        System.exit(new ProcessBuilder(command).directory(DIRECTORY.toFile()).inheritIO().start().waitFor());
+    }
+
+    private boolean runAll() throws InterruptedException {
+        List<Object[]> slots = freeSlots();
+        System.out.println("Booking with " + threads + " threads over " + slots.size() + " free slots");
+        for (int round = 0; round < rounds; round++) {
+            singleSlot(slots.get(round));
+        }
+        spread(slots.subList(rounds, Math.min(slots.size(), rounds + SPREAD_SLOTS)));
+        System.out.println(failures == 0 ? "PASS" : "FAIL: " + failures + " check(s) failed");
+        return failures == 0;
+    }
+
+    // Every thread books the same slot at once; exactly one must succeed
+    private void singleSlot(Object[] slot) throws InterruptedException {
+        AtomicInteger wins = new AtomicInteger();
+        Map<Integer, Boolean> winners = new ConcurrentHashMap<>();
+        runThreads(thread -> {
+            if (book(slot, patient(thread))) {
+                wins.incrementAndGet();
+                winners.put(thread, true);
+            }
+        });
+        check(wins.get() == 1, "single slot " + describe(slot) + ": " + wins.get() + " bookings succeeded");
+        if (winners.size() == 1) {
+            String winner = patient(winners.keySet().iterator().next());
+            check(winner.equals(status(slot)), "single slot " + describe(slot) + " is held by " + status(slot) + ", not " + winner);
+        }
+        System.out.println("Single slot " + describe(slot) + ": " + wins.get() + " of " + threads + " bookings succeeded");
+    }
+
+    // Every thread books every slot of the spread, each in its own order, while the journal is compacted
+    private void spread(List<Object[]> slots) throws InterruptedException {
+        Map<Integer, String> winners = new ConcurrentHashMap<>(); // Slot index -> patient whose booking succeeded
+        AtomicInteger doubleBookings = new AtomicInteger();
+        AtomicBoolean booking = new AtomicBoolean(true);
+        Thread compactor = new Thread(() -> {
+            while (booking.get()) {
+                scheduleService.compact();
+            }
+        }, "stress-compactor");
+        compactor.start();
+        runThreads(thread -> {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < slots.size(); i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, new Random(thread));
+            for (int index : order) {
+                if (book(slots.get(index), patient(thread)) && winners.putIfAbsent(index, patient(thread)) != null) {
+                    doubleBookings.incrementAndGet();
+                }
+            }
+        });
+        booking.set(false);
+        compactor.join();
+
+        check(doubleBookings.get() == 0, "spread: " + doubleBookings.get() + " slots were booked twice");
+        check(winners.size() == slots.size(), "spread: " + winners.size() + " of " + slots.size() + " slots were booked");
+        int inMemory = countHeld(slots, winners);
+        scheduleService.reload(); // Compacts, then reads every calendar back from the files
+        int reloaded = countHeld(slots, winners);
+        check(inMemory == slots.size(), "spread: " + inMemory + " slots held by their winner in memory");
+        check(reloaded == slots.size(), "spread: " + reloaded + " slots held by their winner after reloading");
+        System.out.println("Spread of " + slots.size() + " slots: " + (threads * slots.size()) + " bookings, "
+                + winners.size() + " succeeded, " + reloaded + " held after reloading");
+    }
+
+    private int countHeld(List<Object[]> slots, Map<Integer, String> winners) {
+        int held = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            held += winners.containsKey(i) && winners.get(i).equals(status(slots.get(i))) ? 1 : 0;
+        }
+        return held;
+    }
+
+    /**
+     * Work done by one thread of a test.
+     */
+    private interface Task {
+        void run(int thread);
+    }
+
+    // Starts every thread, releases them together, and waits for them all
+    private void runThreads(Task task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(thread);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "stress-" + t);
+            worker.start();
+            started.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : started) {
+            worker.join();
+        }
+    }
+
+    // Collects the free slots of every doctor, from tomorrow on
+    private List<Object[]> freeSlots() {
+        List<Object[]> slots = new ArrayList<>();
+        LocalDate date = LocalDate.now().plusDays(1);
+        for (int day = 0; day < DAYS; day++, date = date.plusDays(1)) {
+            for (int doctor = 1; doctor <= DOCTORS; doctor++) {
+                String doctorID = String.format("D%03d", doctor);
+                for (LocalTime time : scheduleService.getAvailableSlots(doctorID, date)) {
+                    slots.add(new Object[] {doctorID, date, time});
+                }
+            }
+        }
+        if (slots.size() <= rounds) {
+            throw new IllegalStateException("Not enough free slots in the test dataset");
+        }
+        return slots;
+    }
+
+    private boolean book(Object[] slot, String patientID) {
+        return scheduleService.bookAppointment((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2], patientID);
+    }
+
+    private String status(Object[] slot) {
+        return scheduleService.getSlotStatus((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2]);
+    }
+
+    private static String patient(int thread) {
+        return "P-STRESS-" + thread;
+    }
+
+    private static String describe(Object[] slot) {
+        return slot[0] + " " + slot[1] + " " + slot[2];
+    }
+
+    private void check(boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + message);
+        }
+    }
+}
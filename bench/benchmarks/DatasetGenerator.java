@@ -0,0 +1,368 @@
+package benchmarks;
+
+import enums.AppointmentStatus;
+import enums.MedicationStatus;
+import models.Appointment;
+import models.Medication;
+import services.UserService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * The {@code DatasetGenerator} class writes a synthetic but internally consistent hospital
+ * dataset in the same CSV formats the application reads and writes, for load and scale testing.
+ * <p>
+ * Every doctor, pharmacist and patient has a user record and a staff or patient record, every
+ * patient has a medical record, every appointment has the request it came from, every booked
+ * slot in the schedule belongs to a confirmed, pending or completed appointment, and every
+ * completed appointment has an invoice. Appointments are spread over the requested number of
+ * days: those before the middle of the range are completed or cancelled, the rest are confirmed
+ * or pending. All users have the password {@value #PASSWORD}.
+ * <p>
+ * The output depends only on the parameters and the seed, so the same command always produces
+ * the same files. Files derived from the CSV files (binary snapshots, the schedule journal and
+ * the appointment ID sequence) are deleted from the output directory, so they are rebuilt from
+ * the generated data.
+ * <p>
+ * Usage:
+ * <pre>
+ * java -cp bench-bin benchmarks.DatasetGenerator --out bench-data/large/data [--doctors 30] [--pharmacists 6]
+ *     [--patients 1400] [--days 30] [--density 0.25] [--seed 42] [--start 2024-11-18]
+ * </pre>
+ */
+public final class DatasetGenerator {
+    public static final String PASSWORD = "password"; // Password of every generated user
+    private static final int SLOTS_PER_DAY = 16; // Half-hour slots from 09:00
+    private static final LocalTime FIRST_SLOT = LocalTime.of(9, 0); // Start of the first slot of the day
+    private static final double BLOCKED_RATE = 0.03; // Share of free slots blocked by the doctor
+    private static final double CANCELLED_RATE = 0.1; // Share of appointments that were cancelled
+    private static final double PENDING_RATE = 0.3; // Share of future appointments not yet accepted
+    private static final long FIRST_APPOINTMENT_ID = 1_000_000; // Appointment IDs are numbered in time order from here
+    private static final String[] DERIVED_FILES = {
+            "schedule.bin", "appointment.bin", "schedule_journal.csv", "user_journal.csv", "appointment_id.seq"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Alice", "Bob", "Charlie", "Diana", "Ethan", "Fiona", "George", "Hannah", "Isaac", "Julia",
+            "Kevin", "Laura", "Marcus", "Nina", "Oscar", "Priya", "Quentin", "Rachel", "Samuel", "Tara",
+            "Umar", "Vera", "William", "Xin", "Yusuf", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+            "Brown", "Stone", "White", "Tan", "Lee", "Wong", "Lim", "Singh", "Kumar", "Clark",
+            "Young", "Garcia", "Smith", "Chen", "Ng", "Patel", "Davis", "Rahman", "Ong", "Price"
+    };
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+    private static final String[] DIAGNOSES = {
+            "Fever", "Cough", "Headache", "Stomach pain", "Flu", "Sprained ankle", "Migraine", "Sore throat"
+    };
+    private static final String[] MEDICINES = {"Paracetamol", "Ibuprofen", "Amoxicillin"}; // Priced by BillingService
+    private static final String[] REPLENISHMENT_STATUSES = {"APPROVED", "PENDING"};
+    private static final DateTimeFormatter RECORD_DOB_FORMAT = DateTimeFormatter.ofPattern("d/M/yy");
+
+    private final Random random;
+    private final int doctors;
+    private final int pharmacists;
+    private final int patients;
+    private final int days;
+    private final double density;
+    private final LocalDate startDate;
+    private final String storedPassword; // PASSWORD in the form written to User.csv
+
+    /**
+     * Constructs a {@code DatasetGenerator}.
+     *
+     * @param seed the seed of the random choices; the same seed gives the same files
+     * @param doctors the number of doctors
+     * @param pharmacists the number of pharmacists
+     * @param patients the number of patients
+     * @param days the number of days of schedule, starting at {@code startDate}
+     * @param density the share of each doctor's working slots that hold an appointment, from 0 to 1
+     * @param startDate the first day of the schedule
+     * @throws Exception if the password cannot be encoded
+     */
+    public DatasetGenerator(long seed, int doctors, int pharmacists, int patients, int days, double density, LocalDate startDate) throws Exception {
+        if (doctors < 1 || patients < 1 || pharmacists < 0 || days < 1 || density < 0 || density > 1) {
+            throw new IllegalArgumentException("Need at least one doctor, patient and day, and a density from 0 to 1");
+        }
+        this.random = new Random(seed);
+        this.doctors = doctors;
+        this.pharmacists = pharmacists;
+        this.patients = patients;
+        this.days = days;
+        this.density = density;
+        this.startDate = startDate;
+        this.storedPassword = UserService.encodePassword(PASSWORD);
+    }
+
+    /**
+     * Generates a dataset from the command line options.
+     *
+     * @param args the command line options
+     * @throws Exception if the dataset cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        Path out = null;
+        int doctors = 30;
+        int pharmacists = 6;
+        int patients = 1400;
+        int days = 30;
+        double density = 0.25;
+        long seed = 42;
+        LocalDate start = LocalDate.of(2024, 11, 18);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Paths.get(args[++i]);
+                case "--doctors" -> doctors = Integer.parseInt(args[++i]);
+                case "--pharmacists" -> pharmacists = Integer.parseInt(args[++i]);
+                case "--patients" -> patients = Integer.parseInt(args[++i]);
+                case "--days" -> days = Integer.parseInt(args[++i]);
+                case "--density" -> density = Double.parseDouble(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--start" -> start = LocalDate.parse(args[++i]);
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (out == null) {
+            System.err.println("Missing --out <directory>");
+            System.exit(2);
+        }
+        int appointments = new DatasetGenerator(seed, doctors, pharmacists, patients, days, density, start).generate(out);
+        System.out.println("Wrote " + doctors + " doctors, " + pharmacists + " pharmacists, " + patients
+                + " patients and " + appointments + " appointments to " + out);
+    }
+
+    /**
+     * Writes the dataset to a directory, replacing the files it generates.
+     *
+     * @param directory the directory to write the CSV files to; created if missing
+     * @return the number of appointments written
+     * @throws IOException if a file cannot be written
+     */
+    public int generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (String derived : DERIVED_FILES) {
+            Files.deleteIfExists(directory.resolve(derived));
+        }
+        List<String> doctorIds = ids("D", 1, doctors, 3);
+        List<String> pharmacistIds = ids("PH", 1, pharmacists, 3);
+        List<String> patientIds = ids("P", 1001, patients, 4);
+
+        writeUsers(directory, doctorIds, pharmacistIds, patientIds);
+        writeStaff(directory, doctorIds, pharmacistIds);
+        writePatients(directory, patientIds);
+        writeInventory(directory);
+        return writeAppointments(directory, doctorIds, patientIds);
+    }
+
+    private void writeUsers(Path directory, List<String> doctorIds, List<String> pharmacistIds, List<String> patientIds) throws IOException {
+        try (BufferedWriter users = Files.newBufferedWriter(directory.resolve("User.csv"))) {
+            users.write("hospitalID,password,role");
+            users.newLine();
+            writeUser(users, "A001", "ADMINISTRATOR");
+            for (String id : doctorIds) {
+                writeUser(users, id, "DOCTOR");
+            }
+            for (String id : pharmacistIds) {
+                writeUser(users, id, "PHARMACIST");
+            }
+            for (String id : patientIds) {
+                writeUser(users, id, "PATIENT");
+            }
+        }
+    }
+
+    private void writeUser(BufferedWriter users, String id, String role) throws IOException {
+        users.write(id + "," + storedPassword + "," + role);
+        users.newLine();
+    }
+
+    // Writes Staff_List.csv, doctor.csv and pharmacist.csv, which all describe the same staff
+    private void writeStaff(Path directory, List<String> doctorIds, List<String> pharmacistIds) throws IOException {
+        try (BufferedWriter staff = Files.newBufferedWriter(directory.resolve("Staff_List.csv"));
+             BufferedWriter doctorFile = Files.newBufferedWriter(directory.resolve("doctor.csv"));
+             BufferedWriter pharmacistFile = Files.newBufferedWriter(directory.resolve("pharmacist.csv"))) {
+            staff.write("staffID,name,role,gender,age");
+            staff.newLine();
+            doctorFile.write("Doctor ID,Name,Contact Information");
+            doctorFile.newLine();
+            pharmacistFile.write("Pharmacist ID,Name,Contact Information");
+            pharmacistFile.newLine();
+            writeStaffMember(staff, null, "A001", "Administrator");
+            for (String id : doctorIds) {
+                writeStaffMember(staff, doctorFile, id, "Doctor");
+            }
+            for (String id : pharmacistIds) {
+                writeStaffMember(staff, pharmacistFile, id, "Pharmacist");
+            }
+        }
+    }
+
+    private void writeStaffMember(BufferedWriter staff, BufferedWriter roleFile, String id, String role) throws IOException {
+        String first = pick(FIRST_NAMES);
+        String last = pick(LAST_NAMES);
+        staff.write(String.join(",", id, first + " " + last, role, gender(), Integer.toString(25 + random.nextInt(40))));
+        staff.newLine();
+        if (roleFile != null) {
+            roleFile.write(String.join(",", id, first + " " + last, email(first, last, id)));
+            roleFile.newLine();
+        }
+    }
+
+    // Writes Patient.csv and medical_record.csv, one row per patient in each
+    private void writePatients(Path directory, List<String> patientIds) throws IOException {
+        try (BufferedWriter patientFile = Files.newBufferedWriter(directory.resolve("Patient.csv"));
+             BufferedWriter records = Files.newBufferedWriter(directory.resolve("medical_record.csv"))) {
+            for (String id : patientIds) {
+                String first = pick(FIRST_NAMES);
+                String last = pick(LAST_NAMES);
+                String name = first + " " + last;
+                LocalDate dob = LocalDate.of(1940 + random.nextInt(65), 1 + random.nextInt(12), 1 + random.nextInt(28));
+                String gender = gender();
+                String bloodType = pick(BLOOD_TYPES);
+                String email = email(first, last, id);
+                // Same layout as PatientService writes, which has no header row
+                patientFile.write(String.join(",", id, name, dob.toString(), gender, bloodType, email));
+                patientFile.newLine();
+                String phone = String.format("%04d %04d", 1000 + random.nextInt(9000), random.nextInt(10000));
+                records.write(String.join(",", id, name, dob.format(RECORD_DOB_FORMAT), gender, phone, email, bloodType,
+                        pick(DIAGNOSES), pick(MEDICINES), pick(DIAGNOSES), pick(MEDICINES)));
+                records.newLine();
+            }
+        }
+    }
+
+    private void writeInventory(Path directory) throws IOException {
+        try (BufferedWriter inventory = Files.newBufferedWriter(directory.resolve("inventory.csv"))) {
+            inventory.write("Medicine Name,Current Stock,Low Level Alert,Replenishment Status");
+            inventory.newLine();
+            for (String medicine : MEDICINES) {
+                int stock = 20 + random.nextInt(200);
+                inventory.write(String.join(",", medicine, Integer.toString(stock),
+                        Integer.toString(5 + random.nextInt(30)), pick(REPLENISHMENT_STATUSES)));
+                inventory.newLine();
+            }
+        }
+    }
+
+    // Books slots day by day, writing each appointment with its request, schedule entry and invoice
+    private int writeAppointments(Path directory, List<String> doctorIds, List<String> patientIds) throws IOException {
+        LocalDate today = startDate.plusDays(days / 2); // Appointments before this day already took place
+        long nextId = FIRST_APPOINTMENT_ID;
+        int count = 0;
+        try (BufferedWriter schedule = Files.newBufferedWriter(directory.resolve("schedule.csv"));
+             BufferedWriter appointmentFile = Files.newBufferedWriter(directory.resolve("appointment.csv"));
+             BufferedWriter requests = Files.newBufferedWriter(directory.resolve("appointment_request.csv"));
+             BufferedWriter billing = Files.newBufferedWriter(directory.resolve("Billing.csv"))) {
+            schedule.write("doctorID,date,time,status");
+            schedule.newLine();
+            appointmentFile.write("appointmentId,patientId,doctorId,appointmentDateTime,status,consultationNotes,serviceProvided,medications,quantity,medicationStatus");
+            appointmentFile.newLine();
+            requests.write("RequestID,DoctorID,PatientID,RequestedDate,RequestedTimeSlot,Status");
+            requests.newLine();
+            billing.write("InvoiceID,PatientID,DoctorID,AppointmentID,Total_Amount,Status");
+            billing.newLine();
+            for (int day = 0; day < days; day++) {
+                LocalDate date = startDate.plusDays(day);
+                boolean past = date.isBefore(today);
+                for (String doctorID : doctorIds) {
+                    for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+                        LocalTime time = FIRST_SLOT.plusMinutes(30L * slot);
+                        if (random.nextDouble() >= density) {
+                            if (random.nextDouble() < BLOCKED_RATE) {
+                                writeSlot(schedule, doctorID, date, time, "Blocked");
+                            }
+                            continue;
+                        }
+                        String patientID = patientIds.get(random.nextInt(patientIds.size()));
+                        Appointment appointment = appointment(Long.toString(nextId++), patientID, doctorID, date.atTime(time), past);
+                        appointmentFile.write(appointment.toString());
+                        appointmentFile.newLine();
+                        String requestStatus = switch (appointment.getStatus()) {
+                            case CANCELLED -> "Cancelled";
+                            case PENDING -> "Pending";
+                            default -> "Accepted";
+                        };
+                        requests.write(String.join(",", "\"" + appointment.getAppointmentId() + "\"", doctorID, patientID,
+                                date.toString(), time.toString(), requestStatus));
+                        requests.newLine();
+                        if (appointment.getStatus() != AppointmentStatus.CANCELLED) {
+                            writeSlot(schedule, doctorID, date, time, patientID);
+                        }
+                        if (appointment.getStatus() == AppointmentStatus.COMPLETED) {
+                            // Same layout as DoctorService writes when an appointment is completed
+                            billing.write(String.join(",", new UUID(random.nextLong(), random.nextLong()).toString(),
+                                    patientID, doctorID, appointment.getAppointmentId(), "0.0", "UNPAID"));
+                            billing.newLine();
+                        }
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private Appointment appointment(String id, String patientID, String doctorID, LocalDateTime dateTime, boolean past) {
+        Appointment appointment = new Appointment(id, patientID, doctorID, dateTime);
+        appointment.setMedicationStatus(MedicationStatus.PENDING);
+        appointment.setConsultationNotes("");
+        appointment.setServiceProvided("");
+        if (random.nextDouble() < CANCELLED_RATE) {
+            appointment.setStatus(AppointmentStatus.CANCELLED);
+        } else if (!past) {
+            appointment.setStatus(random.nextDouble() < PENDING_RATE ? AppointmentStatus.PENDING : AppointmentStatus.CONFIRMED);
+        } else {
+            appointment.setStatus(AppointmentStatus.COMPLETED);
+            appointment.setConsultationNotes(pick(DIAGNOSES));
+            appointment.setServiceProvided("Consultation");
+            int medications = 1 + random.nextInt(2);
+            int first = random.nextInt(MEDICINES.length);
+            for (int i = 0; i < medications; i++) {
+                int quantity = 5 * (1 + random.nextInt(10));
+                appointment.addMedication(new Medication(MEDICINES[(first + i) % MEDICINES.length], quantity, MedicationStatus.PENDING), quantity);
+            }
+            appointment.setMedicationStatus(random.nextBoolean() ? MedicationStatus.DISPENSED : MedicationStatus.PENDING);
+        }
+        return appointment;
+    }
+
+    private static void writeSlot(BufferedWriter schedule, String doctorID, LocalDate date, LocalTime time, String status) throws IOException {
+        schedule.write(String.join(",", doctorID, date.toString(), time.toString(), status));
+        schedule.newLine();
+    }
+
+    // Returns IDs such as D001, PH012 or P1001: a prefix and a zero-padded number
+    private static List<String> ids(String prefix, int first, int count, int width) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(prefix + String.format("%0" + width + "d", first + i));
+        }
+        return ids;
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String gender() {
+        return random.nextBoolean() ? "Male" : "Female";
+    }
+
+    private static String email(String first, String last, String id) {
+        return (first + "." + last + "." + id).toLowerCase() + "@example.com";
+    }
+}
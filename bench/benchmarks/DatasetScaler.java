@@ -0,0 +1,99 @@
+package benchmarks;
+
+import stores.CsvReader;
+import stores.CsvRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The {@code DatasetScaler} class builds a larger copy of a {@code data/} directory by
+ * repeating its rows, so benchmarks can be run at a multiple of today's data size.
+ * <p>
+ * Copy {@code k} of a row has {@code -k} appended to every ID it contains (user, patient,
+ * doctor, pharmacist, appointment, request and invoice IDs), so the copies do not collide and
+ * still refer to each other consistently: a copied appointment belongs to the copied patient
+ * and doctor. Inventory rows are repeated under suffixed medicine names. Header rows, and the
+ * files that hold neither IDs nor inventory, are copied once.
+ */
+public final class DatasetScaler {
+    private static final String[] ID_FILES = { // Files whose first column holds IDs referenced elsewhere
+            "User.csv", "Patient.csv", "doctor.csv", "pharmacist.csv", "Staff_List.csv",
+            "appointment.csv", "appointment_request.csv", "medical_record.csv", "Billing.csv"
+    };
+    private static final Set<String> HEADERLESS_FILES = Set.of("Patient.csv", "medical_record.csv"); // ID files without a header row
+    private static final String INVENTORY_FILE = "inventory.csv";
+
+    private DatasetScaler() {
+    }
+
+    /**
+     * Writes a copy of the source data directory with every ID-bearing row repeated.
+     *
+     * @param source the directory holding today's CSV files
+     * @param target the directory to write the scaled CSV files to; created if missing
+     * @param factor how many copies of each row to write
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void scale(Path source, Path target, int factor) throws IOException {
+        Set<String> ids = new HashSet<>();
+        for (String file : ID_FILES) {
+            Path path = source.resolve(file);
+            if (Files.exists(path)) {
+                CsvReader.read(path.toString(), !HEADERLESS_FILES.contains(file), row -> ids.add(row.getTrimmed(0)));
+            }
+        }
+        Files.createDirectories(target);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(source)) {
+            listing.filter(path -> path.getFileName().toString().endsWith(".csv")).forEach(files::add);
+        }
+        for (Path file : files) {
+            boolean inventory = file.getFileName().toString().equals(INVENTORY_FILE);
+            scaleFile(file, target.resolve(file.getFileName()), factor, ids, inventory);
+        }
+    }
+
+    // Writes one file, repeating each row that holds an ID, or every data row for the inventory
+    private static void scaleFile(Path source, Path target, int factor, Set<String> ids, boolean inventory) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target);
+             CsvReader reader = new CsvReader(Files.newBufferedReader(source))) {
+            boolean header = true;
+            while (reader.next()) {
+                CsvRow row = reader.getRow();
+                boolean repeat = inventory ? !header : ids.contains(row.getTrimmed(0));
+                header = false;
+                int copies = repeat ? factor : 1;
+                for (int copy = 0; copy < copies; copy++) {
+                    writeRow(writer, row, copy, ids, inventory);
+                }
+            }
+        }
+    }
+
+    private static void writeRow(BufferedWriter writer, CsvRow row, int copy, Set<String> ids, boolean inventory) throws IOException {
+        for (int i = 0; i < row.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = row.getString(i);
+            boolean suffix = copy > 0 && (ids.contains(field.trim()) || (inventory && i == 0));
+            writer.write(quote(suffix ? field.trim() + "-" + copy : field));
+        }
+        writer.newLine();
+    }
+
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,151 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code Harness} class times a single operation the way a micro-benchmark harness does:
+ * the operation is first run for a warm-up period so the JIT compiler has settled, and then
+ * every call is timed individually for a measurement period.
+ * <p>
+ * Results are reported as the mean, median and 99th percentile time per call. The value
+ * returned by each call is folded into a field that is read at the end, so the compiler
+ * cannot remove the work as dead code. Anything the operation prints to {@code System.out} is
+ * discarded while it runs, so that console messages from services do not distort the timing.
+ */
+public final class Harness {
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    /**
+     * One operation to be timed.
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @param iteration the number of calls made before this one, for picking inputs
+         * @return a value derived from the work done, so the work cannot be optimised away
+         * @throws Exception if the operation fails; the benchmark is then aborted
+         */
+        Object run(int iteration) throws Exception;
+    }
+
+    /**
+     * The timings of one benchmark.
+     */
+    public static final class Result {
+        private final String name;
+        private final int calls;
+        private final double meanNanos;
+        private final long medianNanos;
+        private final long p99Nanos;
+
+        private Result(String name, long[] samples, int calls) {
+            long[] sorted = Arrays.copyOf(samples, calls);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long sample : sorted) {
+                total += sample;
+            }
+            this.name = name;
+            this.calls = calls;
+            this.meanNanos = calls == 0 ? 0 : (double) total / calls;
+            this.medianNanos = calls == 0 ? 0 : sorted[calls / 2];
+            this.p99Nanos = calls == 0 ? 0 : sorted[Math.min(calls - 1, (int) Math.ceil(calls * 0.99) - 1)];
+        }
+
+        /**
+         * Formats the result as one row of the report table.
+         *
+         * @return the formatted row
+         */
+        public String format() {
+            return String.format("%-28s %9d %14s %14s %14s", name, calls,
+                    formatNanos(meanNanos), formatNanos(medianNanos), formatNanos(p99Nanos));
+        }
+
+        /**
+         * Returns the header matching the rows produced by {@link #format()}.
+         *
+         * @return the table header
+         */
+        public static String header() {
+            return String.format("%-28s %9s %14s %14s %14s", "Benchmark", "Calls", "Mean", "Median", "p99");
+        }
+    }
+
+    private final long warmupNanos; // How long each operation runs before it is timed
+    private final long measureNanos; // How long each operation is timed for
+    private final int maxCalls; // Upper bound on timed calls, so fast operations do not fill memory
+    private long sink; // Hash of every value returned, read at the end so no work is dead
+
+    /**
+     * Constructs a {@code Harness} with the specified warm-up and measurement periods.
+     *
+     * @param warmupMillis how long each operation runs untimed first, in milliseconds
+     * @param measureMillis how long each operation is timed for, in milliseconds
+     * @param maxCalls the largest number of timed calls per operation
+     */
+    public Harness(long warmupMillis, long measureMillis, int maxCalls) {
+        this.warmupNanos = TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        this.measureNanos = TimeUnit.MILLISECONDS.toNanos(measureMillis);
+        this.maxCalls = maxCalls;
+    }
+
+    /**
+     * Warms up and then times an operation. At least one call is always timed.
+     *
+     * @param name the name under which the result is reported
+     * @param operation the operation to time
+     * @return the timings
+     * @throws Exception if the operation fails
+     */
+    public Result measure(String name, Operation operation) throws Exception {
+        PrintStream out = System.out;
+        System.setOut(DISCARD);
+        try {
+            int iteration = 0;
+            long warmupEnd = System.nanoTime() + warmupNanos;
+            while (System.nanoTime() < warmupEnd && iteration < maxCalls) {
+                consume(operation.run(iteration++));
+            }
+            long[] samples = new long[maxCalls];
+            int calls = 0;
+            long measureEnd = System.nanoTime() + measureNanos;
+            do {
+                long start = System.nanoTime();
+                Object value = operation.run(iteration++);
+                samples[calls++] = System.nanoTime() - start;
+                consume(value);
+            } while (System.nanoTime() < measureEnd && calls < maxCalls);
+            return new Result(name, samples, calls);
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Returns a value depending on every result seen, to be printed once at the end.
+     *
+     * @return the accumulated hash of all results
+     */
+    public long getSink() {
+        return sink;
+    }
+
+    private void consume(Object value) {
+        sink = 31 * sink + (value == null ? 0 : value.hashCode());
+    }
+
+    private static String formatNanos(double nanos) {
+        if (nanos >= 1_000_000) {
+            return String.format("%.2f ms", nanos / 1_000_000);
+        }
+        if (nanos >= 1_000) {
+            return String.format("%.2f us", nanos / 1_000);
+        }
+        return String.format("%.0f ns", nanos);
+    }
+}
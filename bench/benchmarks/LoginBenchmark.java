@@ -0,0 +1,126 @@
+package benchmarks;
+
+import models.User;
+import services.UserService;
+import stores.CsvReader;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code LoginBenchmark} class measures login throughput, in logins per second, with one
+ * thread and with one thread per processor, as at a shift change when many staff log in at once.
+ * <p>
+ * It compares {@link UserService#login} with the previous implementation, reproduced here,
+ * which looked up and initialised a new cipher for every attempt and decrypted the stored
+ * password to compare plain text. Every attempt uses a user's real password, so every attempt
+ * succeeds. Run it from a directory whose {@code data/User.csv} holds encrypted passwords,
+ * such as the project root or a dataset written by {@link DatasetGenerator}:
+ * <pre>
+ * java -cp bench-bin benchmarks.LoginBenchmark [--seconds 3]
+ * </pre>
+ */
+public final class LoginBenchmark {
+    private static final String ALGORITHM = "AES"; // As used by UserService
+    private static final String SECRET_KEY = "MySuperSecretKey"; // As used by UserService
+
+    /**
+     * One way of checking a login.
+     */
+    private interface Login {
+        boolean login(int attempt);
+    }
+
+    private LoginBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the command line options
+     * @throws Exception if User.csv cannot be read
+     */
+    public static void main(String[] args) throws Exception {
+        long seconds = 3;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--seconds")) {
+                seconds = Long.parseLong(args[++i]);
+            }
+        }
+        UserService userService = new UserService();
+        List<String> ids = new ArrayList<>();
+        CsvReader.read("data/User.csv", true, row -> ids.add(row.getTrimmed(0)));
+        List<String> passwords = new ArrayList<>();
+        List<String> stored = new ArrayList<>();
+        for (String id : ids) {
+            User user = userService.getUserById(id);
+            passwords.add(userService.getPlaintextPassword(id));
+            stored.add(user.getPassword());
+        }
+        int users = ids.size();
+        Login legacy = attempt -> legacyLogin(stored.get(attempt % users), passwords.get(attempt % users));
+        Login current = attempt -> userService.login(ids.get(attempt % users), passwords.get(attempt % users));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-34s %8s %16s%n", "Login path", "Threads", "Logins/s");
+        for (int threads : processors > 1 ? new int[] {1, processors} : new int[] {1}) {
+            double before = throughput(legacy, threads, seconds);
+            double after = throughput(current, threads, seconds);
+            System.out.printf("%-34s %8d %16.0f%n", "Before: new cipher, decrypt", threads, before);
+            System.out.printf("%-34s %8d %16.0f%n", "After: per-thread cipher, compare", threads, after);
+            System.out.printf("%-34s %8d %15.1fx%n", "Speed-up", threads, after / before);
+        }
+    }
+
+    // Runs logins on several threads for a fixed time after a warm-up, and returns logins per second
+    private static double throughput(Login login, int threads, long seconds) throws InterruptedException {
+        run(login, threads, TimeUnit.SECONDS.toNanos(1)); // Warm-up
+        long nanos = TimeUnit.SECONDS.toNanos(seconds);
+        return run(login, threads, nanos) * 1e9 / nanos;
+    }
+
+    private static long run(Login login, int threads, long nanos) throws InterruptedException {
+        AtomicLong total = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long end = System.nanoTime() + nanos;
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    if (!login.login((int) (offset + count))) {
+                        failures.incrementAndGet();
+                    }
+                    count++;
+                }
+                total.addAndGet(count);
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " logins failed");
+        }
+        return total.get();
+    }
+
+    // The login check as it was before ciphers were kept per thread
+    private static boolean legacyLogin(String storedPassword, String password) {
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM));
+            byte[] decodedBytes = Base64.getDecoder().decode(storedPassword.substring(4, storedPassword.length() - 1));
+            return new String(cipher.doFinal(decodedBytes)).equals(password);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
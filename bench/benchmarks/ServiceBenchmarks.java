@@ -0,0 +1,257 @@
+package benchmarks;
+
+import enums.MedicationStatus;
+import models.Appointment;
+import models.Inventory;
+import services.AppointmentService;
+import services.BillingService;
+import services.InventoryService;
+import services.MedicalRecordService;
+import services.ScheduleService;
+import services.UserService;
+import stores.CsvReader;
+import stores.InventoryDataStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The {@code ServiceBenchmarks} class times the hot paths of the service layer against
+ * datasets that are a multiple of today's {@code data/} directory, so that every performance
+ * change can be compared against a baseline.
+ * <p>
+ * The services read and write fixed paths under {@code data/}, and several of them are
+ * process-wide singletons, so each scale runs in its own JVM started in a directory holding
+ * the scaled dataset. The parent process builds the datasets, forks one child per scale and
+ * lets the children print their results.
+ * <p>
+ * By default a dataset is today's {@code data/} directory with every row repeated (see
+ * {@link DatasetScaler}). With {@code --generated}, each dataset is instead built by
+ * {@link DatasetGenerator} with 3, 6 and 14 times the scale in doctors, pharmacists and
+ * patients, and two weeks of schedule booked to {@value #GENERATED_DENSITY}, so that the
+ * schedule and appointment files have realistic contents.
+ * <p>
+ * Usage, from the project root after compiling {@code src} and {@code bench} together:
+ * <pre>
+ * java -cp out benchmarks.ServiceBenchmarks [--scales 10,100,1000] [--warmup ms] [--measure ms] [--only prefix] [--generated]
+ * </pre>
+ * System properties such as {@code -Dhms.binarySnapshots=false} given to the parent are passed
+ * on to the children.
+ */
+public final class ServiceBenchmarks {
+    private static final String DATA_DIR = "data"; // Today's dataset, relative to the working directory
+    private static final String BENCH_DIR = "bench-data"; // Where the scaled datasets are written
+    private static final int MAX_CALLS = 1_000_000; // Upper bound on timed calls per benchmark
+    private static final int BOOKING_SLOTS = 1000; // Number of free slots cycled through by the booking benchmarks
+    private static final long GENERATED_SEED = 42; // Seed of generated datasets, so runs are comparable
+    private static final int GENERATED_DAYS = 14; // Days of schedule in generated datasets
+    private static final double GENERATED_DENSITY = 0.1; // Share of slots booked in generated datasets
+
+    private final Harness harness;
+    private final String only; // Only benchmarks whose name starts with this are run, or all if null
+
+    private ServiceBenchmarks(Harness harness, String only) {
+        this.harness = harness;
+        this.only = only;
+    }
+
+    /**
+     * Builds the scaled datasets and runs the benchmarks against each of them, or, when
+     * started with {@code --run}, runs the benchmarks against the dataset in the working
+     * directory.
+     *
+     * @param args the command line options
+     * @throws Exception if a dataset cannot be built or a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        String scales = "10,100,1000";
+        long warmup = 1000;
+        long measure = 2000;
+        String only = null;
+        String run = null;
+        boolean generated = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--scales" -> scales = args[++i];
+                case "--warmup" -> warmup = Long.parseLong(args[++i]);
+                case "--measure" -> measure = Long.parseLong(args[++i]);
+                case "--only" -> only = args[++i];
+                case "--run" -> run = args[++i];
+                case "--generated" -> generated = true;
+                default -> {
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (run != null) {
+            new ServiceBenchmarks(new Harness(warmup, measure, MAX_CALLS), only).runAll(run);
+            return;
+        }
+        for (String scale : scales.split(",")) {
+            int factor = Integer.parseInt(scale.trim());
+            Path directory = Paths.get(BENCH_DIR, "x" + factor);
+            deleteRecursively(directory);
+            if (generated) {
+                new DatasetGenerator(GENERATED_SEED, 3 * factor, 6 * factor, 14 * factor, GENERATED_DAYS, GENERATED_DENSITY,
+                        LocalDate.of(2024, 11, 18)).generate(directory.resolve(DATA_DIR));
+            } else {
+                DatasetScaler.scale(Paths.get(DATA_DIR), directory.resolve(DATA_DIR), factor);
+            }
+            int exit = fork(directory, factor, warmup, measure, only);
+            if (exit != 0) {
+                System.err.println("Benchmarks at scale " + factor + "x failed with exit code " + exit);
+                System.exit(exit);
+            }
+        }
+    }
+
+    // Runs the benchmarks of one scale in a fresh JVM working in the scaled dataset's directory
+    private static int fork(Path directory, int factor, long warmup, long measure, String only) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("hms."))
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.add("-cp");
+        command.add(absoluteClassPath());
+        command.add(ServiceBenchmarks.class.getName());
+        command.addAll(List.of("--run", factor + "x", "--warmup", Long.toString(warmup), "--measure", Long.toString(measure)));
+        if (only != null) {
+            command.addAll(List.of("--only", only));
+        }
+        return new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start().waitFor();
+    }
+
+    // The class path of this JVM with every entry made absolute, as the child runs in another directory
+    static String absoluteClassPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(Paths.get(entry).toAbsolutePath().toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private void runAll(String scale) throws Exception {
+        System.out.println();
+        System.out.println("Scale " + scale + " (" + Files.size(Paths.get(DATA_DIR, "appointment.csv")) / 1024 + " KB of appointments)");
+        System.out.println(Harness.Result.header());
+
+        List<String> doctorIds = firstColumn("doctor.csv", true);
+        ScheduleService scheduleService = ScheduleService.getInstance();
+        run("ScheduleService.load", i -> {
+            scheduleService.reload();
+            int loaded = 0;
+            for (String doctorID : doctorIds) {
+                loaded += scheduleService.getCalendar(doctorID) != null ? 1 : 0;
+            }
+            return loaded;
+        });
+        List<Object[]> slots = freeSlots(scheduleService, doctorIds);
+        run("ScheduleService.book", i -> {
+            Object[] slot = slots.get(i % slots.size());
+            boolean booked = scheduleService.bookAppointment((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2], "P-BENCH");
+            scheduleService.cancelAppointment((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2], "P-BENCH");
+            return booked;
+        });
+        run("ScheduleService.save", i -> {
+            Object[] slot = slots.get(i % slots.size());
+            scheduleService.bookAppointment((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2], "P-BENCH");
+            scheduleService.cancelAppointment((String) slot[0], (LocalDate) slot[1], (LocalTime) slot[2], "P-BENCH");
+            scheduleService.compact();
+            return i;
+        });
+
+        AppointmentService appointmentService = new AppointmentService(scheduleService);
+        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
+        List<String> appointmentIds = new ArrayList<>();
+        appointments.forEach(appointment -> appointmentIds.add(appointment.getAppointmentId()));
+        run("AppointmentService.get", i -> appointmentService.getAppointment(appointmentIds.get(i % appointmentIds.size())));
+        run("AppointmentService.save", i -> {
+            appointmentService.saveAppointmentsToCSV();
+            return i;
+        });
+
+        UserService userService = new UserService();
+        List<String> userIds = firstColumn("User.csv", true);
+        List<String> passwords = new ArrayList<>();
+        userIds.forEach(id -> passwords.add(userService.getPlaintextPassword(id)));
+        // Real passwords, so that failed attempts do not lock the accounts out part way through
+        run("UserService.login", i -> userService.login(userIds.get(i % userIds.size()), passwords.get(i % userIds.size())));
+
+        InventoryDataStore inventoryDataStore = new InventoryDataStore();
+        InventoryService inventoryService = new InventoryService(inventoryDataStore, appointmentService);
+        String medicine = inventoryDataStore.getInventoryList().stream().map(Inventory::getMedicineName).findFirst().orElse(null);
+        String undispensed = appointments.stream()
+                .filter(appointment -> appointment.getMedicationStatus() != MedicationStatus.DISPENSED)
+                .map(Appointment::getAppointmentId).findFirst().orElse(null);
+        if (medicine != null && undispensed != null) {
+            // A quantity of 0 takes the full path (scan, both CSV writes) without draining the stock
+            run("InventoryService.updateStock", i -> {
+                inventoryService.updateStock(medicine, 0, undispensed);
+                return i;
+            });
+        }
+
+        MedicalRecordService medicalRecordService = new MedicalRecordService();
+        run("MedicalRecordService.load", i -> {
+            medicalRecordService.loadRecordsFromCSV();
+            return i;
+        });
+
+        BillingService billingService = new BillingService();
+        run("BillingService.calculateBill", i -> billingService.calculateBill(appointments.get(i % appointments.size())));
+
+        System.out.println("(sink " + harness.getSink() + ")");
+    }
+
+    private void run(String name, Harness.Operation operation) throws Exception {
+        if (only != null && !name.startsWith(only)) {
+            return;
+        }
+        System.out.println(harness.measure(name, operation).format());
+    }
+
+    // Collects up to BOOKING_SLOTS free slots spread over the doctors, starting next week
+    private static List<Object[]> freeSlots(ScheduleService scheduleService, List<String> doctorIds) {
+        List<Object[]> slots = new ArrayList<>();
+        LocalDate date = LocalDate.now().plusDays(7);
+        for (int day = 0; day < 60 && slots.size() < BOOKING_SLOTS; day++, date = date.plusDays(1)) {
+            for (String doctorID : doctorIds) {
+                for (LocalTime time : scheduleService.getAvailableSlots(doctorID, date)) {
+                    slots.add(new Object[] {doctorID, date, time});
+                }
+            }
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalStateException("No free slots to book in the benchmark dataset");
+        }
+        return slots;
+    }
+
+    private static List<String> firstColumn(String file, boolean skipHeader) throws IOException {
+        List<String> values = new ArrayList<>();
+        CsvReader.read(Paths.get(DATA_DIR, file).toString(), skipHeader, row -> values.add(row.getTrimmed(0)));
+        return values;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
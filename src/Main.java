@@ -1,5 +1,6 @@
+import controllers.SessionManager;
 import controllers.UserController;
-import services.UserService;
+import services.ApplicationContext;
 // import services.DataService;
 // import stores.AuthStore;
 // import stores.DataStore;
@@ -7,8 +8,17 @@ import services.UserService;
 public class Main {
     public static void main(String[] args) {
         try {
-            UserService userService = new UserService();
-            UserController userController = new UserController(userService);
+            // Build every service once; all menus share these instances
+            ApplicationContext context = ApplicationContext.getInstance();
+            if (ApplicationContext.PRINT_STARTUP_TIMING) {
+                context.printStartupTimes();
+            }
+            if (SessionManager.SESSION_PORT > 0) {
+                // Serve many terminals from this one process, all sharing the services above
+                new SessionManager(context.getUserService(), SessionManager.SESSION_PORT).serve();
+                return;
+            }
+            UserController userController = new UserController(context.getUserService());
             userController.run();
         } catch (Exception e) {
             // Need to save data and log out
@@ -7,7 +7,6 @@ import services.AppointmentService;
 import services.InventoryService;
 import services.ProjectAdminService;
 import services.ReplenishmentService;
-import stores.InventoryDataStore;
 import interfaces.IInventoryService;
 import models.Administrator;
 import models.Appointment;
@@ -18,6 +17,7 @@ import java.util.List;
 import java.util.Scanner;
 
 import enums.StatusEnum;
+import enums.UserRole;
 import views.MedicalInventoryView;
 import services.UserService;
 
@@ -26,6 +26,7 @@ import services.UserService;
  * for the administrator, including managing staff, inventory, and appointments.
  */
 public class AdministratorController {
+    private static final int STAFF_PAGE_SIZE = 10; // Staff members shown per page of the staff list
 
     private final ProjectAdminService adminService;
     private final AppointmentService appointmentService;
@@ -46,10 +47,8 @@ public class AdministratorController {
         this.appointmentService = appointmentService;
         this.adminService = adminService;
         this.userService = userService;
-        this.replenishmentService = new ReplenishmentService(); // Initialize ReplenishmentService here
-
-        InventoryDataStore inventoryDataStore = new InventoryDataStore();
-        this.inventoryService = new InventoryService(inventoryDataStore);
+        this.replenishmentService = ApplicationContext.getInstance().getReplenishmentService();
+        this.inventoryService = ApplicationContext.getInstance().getInventoryService();
 
         this.adminView = new AdminView(this, adminService, userService, patientService);
     }
@@ -132,8 +131,7 @@ public class AdministratorController {
                     break;
 
                 case 3:
-                    List<Staff> staffList = adminService.getAllStaff();
-                    adminView.displayListOfStaff(staffList);
+                    viewStaffList();
                     break;
 //                case 4:
 //                    managePatients();
@@ -157,6 +155,27 @@ public class AdministratorController {
         }
     }
 
+    /**
+     * Displays the staff list one page at a time, optionally for a single role.
+     */
+    private void viewStaffList() {
+        UserRole role = adminView.getStaffRoleFilter();
+        String afterStaffId = null;
+        while (true) {
+            // Fetch one extra staff member to know whether another page follows
+            List<Staff> page = adminService.getStaffPage(role, afterStaffId, STAFF_PAGE_SIZE + 1);
+            boolean hasNextPage = page.size() > STAFF_PAGE_SIZE;
+            if (hasNextPage) {
+                page = page.subList(0, STAFF_PAGE_SIZE);
+            }
+            adminView.displayListOfStaff(page);
+            if (!hasNextPage || !adminView.askForNextPage()) {
+                return;
+            }
+            afterStaffId = page.get(page.size() - 1).getId();
+        }
+    }
+
     /**
      * Manages inventory, including adding, updating, and removing medications.
      */
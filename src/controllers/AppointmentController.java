@@ -2,6 +2,7 @@ package controllers;
 
 import models.Appointment;
 import models.Medication;
+import services.ApplicationContext;
 import services.AppointmentService;
 
 import java.time.LocalDate;
@@ -18,10 +19,10 @@ public class AppointmentController {
     private final AppointmentService appointmentService;
 
     /**
-     * Constructs an AppointmentController and initializes the AppointmentService.
+     * Constructs an AppointmentController over the shared AppointmentService.
      */
     public AppointmentController() {
-        this.appointmentService = new AppointmentService();
+        this.appointmentService = ApplicationContext.getInstance().getAppointmentService();
     }
 
     /**
@@ -1,19 +1,23 @@
 package controllers;
 
 import models.Appointment;
+import services.ApplicationContext;
+import services.AppointmentService;
 import services.BillingService;
 import enums.AppointmentStatus;
 import models.PaymentLogger;
 import java.util.List;
 public class BillingController {
     private final BillingService billingService;
+    private final AppointmentService appointmentService;
 
     public BillingController() {
-        this.billingService = new BillingService();
+        this.billingService = ApplicationContext.getInstance().getBillingService();
+        this.appointmentService = ApplicationContext.getInstance().getAppointmentService();
     }
 
     public String calculateBill(String appointmentId) {
-        Appointment appointment = Appointment.getAppointmentById(appointmentId); // Assume Appointment has a static lookup
+        Appointment appointment = appointmentService.getAppointmentById(appointmentId); // Shared service, holding every appointment in memory
         if (appointment == null) {
             return "No appointment found with ID: " + appointmentId;
         }
@@ -49,7 +53,7 @@ public class BillingController {
     }
 
     public boolean payBill(String appointmentId) {
-        Appointment appointment = Appointment.getAppointmentById(appointmentId);
+        Appointment appointment = appointmentService.getAppointmentById(appointmentId);
         if (appointment == null || !appointment.getStatus().equals(AppointmentStatus.COMPLETED)) {
             System.out.println("Payment cannot be processed for Appointment ID: " + appointmentId);
             return false;
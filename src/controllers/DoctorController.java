@@ -1,5 +1,6 @@
 package controllers;
 
+import services.ApplicationContext;
 import services.DoctorService;
 import services.AppointmentService;
 import services.ScheduleService;
@@ -40,15 +41,15 @@ public class DoctorController {
         this.appointmentService = appointmentService;
         this.medicalRecordService = medicalRecordService;
         this.scheduleService = scheduleService;
-        this.appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
-        this.userService = new UserService();
+        this.appointmentRequestService = ApplicationContext.getInstance().getAppointmentRequestService();
+        this.userService = ApplicationContext.getInstance().getUserService();
 
         // the views
         this.medicalRecordsView = new PatientMedicalRecordView(medicalRecordService);
         this.viewPendingAppointmentRequest = new PendingAppointmentRequestView(scheduleService, appointmentService);
         this.personalScheduleView = new PersonalScheduleView(scheduleService);
         this.viewUpcomingAppointments = new UpcomingAppointmentsView(scheduleService);
-        this.appointmentOutcomeRecordView = new AppointmentOutcomeRecordView();
+        this.appointmentOutcomeRecordView = new AppointmentOutcomeRecordView(appointmentService);
     }
     //viewing medical records
     public void medicalRecordsView(String patientId) {
@@ -71,17 +72,39 @@ public class DoctorController {
     public void acceptAppointmentRequest(Doctor doctor) {
         viewPendingAppointmentRequest.displayPendingRequests(doctor);
       Scanner sc = new Scanner(System.in);
-      System.out.println("Enter RequestID: ");
-      String reqId = sc.nextLine();
-      doctorService.acceptanceOfRequest(reqId);
+      System.out.println("Enter RequestID (separate several IDs with commas): ");
+      List<String> reqIds = parseRequestIds(sc.nextLine());
+      if (reqIds.size() == 1) {
+          doctorService.acceptanceOfRequest(reqIds.get(0));
+      } else {
+          doctorService.acceptanceOfRequests(reqIds);
+      }
     }
 
     public void declineAppointmentRequest(Doctor doctor) {
         viewPendingAppointmentRequest.displayPendingRequests(doctor);
       Scanner sc = new Scanner(System.in);
-      System.out.println("Enter RequestID: ");
-      String reqId = sc.nextLine();
-      doctorService.declineRequest(reqId);
+      System.out.println("Enter RequestID (separate several IDs with commas): ");
+      List<String> reqIds = parseRequestIds(sc.nextLine());
+      if (reqIds.size() == 1) {
+          doctorService.declineRequest(reqIds.get(0));
+      } else {
+          doctorService.declineRequests(reqIds);
+      }
+    }
+
+    // Splits a comma-separated list of request IDs, ignoring blanks
+    private List<String> parseRequestIds(String input) {
+        List<String> reqIds = new ArrayList<>();
+        for (String reqId : input.split(",")) {
+            if (!reqId.trim().isEmpty()) {
+                reqIds.add(reqId.trim());
+            }
+        }
+        if (reqIds.isEmpty()) {
+            reqIds.add(input.trim()); // Reported as not found, as before
+        }
+        return reqIds;
     }
 
     public void setToAvailable(Doctor doctor) {
@@ -271,15 +294,12 @@ System.out.println("Requested appointment slot is set to unavailable.");
     }
      
      public boolean viewAppointmentOutcomeRecords(Doctor doctor) {
-    	    // Initialize AppointmentService to fetch appointments
-    	    AppointmentService appointmentService = new AppointmentService();
-    	    List<Appointment> allAppointments = appointmentService.viewScheduledAppointments();
+    	    List<Appointment> doctorAppointments = appointmentService.getAppointmentsByDoctor(doctor.getHospitalID());
 
-    	    // Filter out appointments that are CONFIRMED and belong to the specified doctor
+    	    // Filter out appointments of the specified doctor that are CONFIRMED
     	    List<Appointment> confirmedAppointments = new ArrayList<>();
-    	    for (Appointment appointment : allAppointments) {
-    	        if (enums.AppointmentStatus.CONFIRMED.equals(appointment.getStatus()) &&
-    	                appointment.getDoctorId().equals(doctor.getHospitalID())) {
+    	    for (Appointment appointment : doctorAppointments) {
+    	        if (enums.AppointmentStatus.CONFIRMED.equals(appointment.getStatus())) {
     	            confirmedAppointments.add(appointment);
     	        }
     	    }
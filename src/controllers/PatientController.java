@@ -2,6 +2,7 @@ package controllers;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -14,6 +15,8 @@ import models.Medication;
 
 import models.Patient;
 import models.Appointment;
+import models.Schedule;
+import services.ApplicationContext;
 import services.AppointmentService;
 import models.AppointmentRequest;
 import services.AppointmentRequestService;
@@ -22,13 +25,16 @@ import services.PatientService;
 import services.ScheduleService;
 import services.DoctorService;
 import services.UserService;
+import stores.AppointmentIdGenerator;
 import views.AllocatedAppointmentView;
 import views.AppointmentHistoryView;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 public class PatientController {
+    private static final LocalDateTime BOOKING_WINDOW_START = LocalDateTime.of(2024, 11, 17, 11, 30); // First bookable time
+    private static final LocalDateTime BOOKING_WINDOW_END = LocalDateTime.of(2024, 12, 18, 11, 0); // Last bookable time
+    private static final int EARLIEST_SLOTS_SHOWN = 5; // Number of earliest free slots offered when booking
     private final PatientService patientService;
     private final AppointmentService appointmentService;
     private final AllocatedAppointmentView allocatedAppointmentView;
@@ -46,10 +52,10 @@ public class PatientController {
 
     // Method to view patient details
     public void viewPatientDetails(Patient patient) {
-        UserService userService=new UserService();
-        ScheduleService scheduleService=new services.ScheduleService();
-        MedicalRecordService medicalRecordService=new MedicalRecordService();
-        DoctorService doctorService=new DoctorService(userService, scheduleService,medicalRecordService,appointmentService);
+        ApplicationContext context = ApplicationContext.getInstance();
+        ScheduleService scheduleService=context.getScheduleService();
+        MedicalRecordService medicalRecordService=context.getMedicalRecordService();
+        DoctorService doctorService=context.getDoctorService();
         DoctorController doctorController=new controllers.DoctorController(doctorService,scheduleService,medicalRecordService, appointmentService);
         doctorController.medicalRecordsView(patient.getHospitalID());
     }
@@ -143,6 +149,17 @@ public class PatientController {
                 return;
             }
 
+            // Offer the earliest free slots across all doctors within the booking window
+            LocalDateTime searchFrom = LocalDateTime.now().isAfter(BOOKING_WINDOW_START) ? LocalDateTime.now() : BOOKING_WINDOW_START;
+            List<Schedule> earliestSlots = ScheduleService.getInstance()
+                    .findEarliestAvailableSlots(searchFrom, BOOKING_WINDOW_END.toLocalDate(), EARLIEST_SLOTS_SHOWN);
+            if (!earliestSlots.isEmpty()) {
+                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm 'HRS'");
+                System.out.println("Earliest available slots:");
+                earliestSlots.forEach(slot -> System.out.println("Doctor ID: " + slot.getDoctorID() + ", Date: " + slot.getDate()
+                        + ", Time: " + slot.getTimeSlot().format(timeFormatter)));
+            }
+
             // Ask for Doctor ID
             System.out.print("Enter Doctor ID: ");
             String doctorId = scanner.nextLine();
@@ -185,10 +202,9 @@ public class PatientController {
             LocalDate localDate = LocalDate.of(year, month, day);
 
 
-            LocalDate startDate = LocalDate.of(2024, 11, 17);
-            LocalDate endDate = LocalDate.of(2024, 12, 18);
-            LocalDateTime startDateTime = LocalDateTime.of(startDate, LocalTime.of(11, 30));
-            LocalDateTime endDateTime = LocalDateTime.of(endDate, LocalTime.of(11, 0));
+            LocalDate startDate = BOOKING_WINDOW_START.toLocalDate();
+            LocalDate endDate = BOOKING_WINDOW_END.toLocalDate();
+            LocalDateTime startDateTime = BOOKING_WINDOW_START;
 
             if (localDate.isBefore(startDate) || localDate.isAfter(endDate) || (localDate.isEqual(startDate) && localDate.atStartOfDay().isBefore(startDateTime))) {
                 System.out.println("Appointments can only be booked for one month in advance.");
@@ -224,7 +240,7 @@ public class PatientController {
                     } else {
                         validTime = true;
                         // Existing code to handle valid time and schedule appointment
-                        String appointmentId = String.valueOf(System.currentTimeMillis()).substring(6);
+                        String appointmentId = AppointmentIdGenerator.getInstance().nextId();
                         Appointment appointment = new Appointment(appointmentId, patient.getHospitalID(), doctorId, dateTime);
 
                         boolean success = appointmentService.scheduleAppointment(appointment);
@@ -240,9 +256,7 @@ public class PatientController {
                                     localTime,
                                     "Pending"
                             );
-                            ScheduleService scheduleService = new ScheduleService();
-                            AppointmentRequestService appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
-                            appointmentRequestService.save(appointmentRequest);
+                            ApplicationContext.getInstance().getAppointmentRequestService().save(appointmentRequest);
                             System.out.println("Appointment request created with ID: " + appointmentRequest.getRequestId());
                         } else {
                             System.out.println("Failed to create appointment.");
@@ -252,6 +266,8 @@ public class PatientController {
                     System.out.println("Invalid time format. Please enter the time in HH:mm format.");
                 } catch (NumberFormatException e) {
                     System.out.println("Invalid input. Please enter numeric values for the time.");
+                } catch (UncheckedIOException e) {
+                    System.out.println("Failed to create appointment: no appointment ID could be reserved.");
                 }
             }
         } else {
@@ -268,13 +284,8 @@ public class PatientController {
             return; // Exit if no patient is provided
         }
 
-        // Retrieve all scheduled appointments and filter by hospitalID
-        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
-
-        // Filter the list of appointments by patient's hospitalID
-        List<Appointment> patientAppointments = appointments.stream()
-                .filter(appointment -> appointment.getPatientId().equals(patient.getHospitalID()))
-                .collect(Collectors.toList());
+        // Look up the patient's appointments by hospitalID
+        List<Appointment> patientAppointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
         // Check if the filtered list of appointments is empty
         if (patientAppointments.isEmpty()) {
@@ -305,13 +316,8 @@ public class PatientController {
             return; // Exit if no patient is provided
         }
 
-        // Retrieve all scheduled appointments and filter by hospitalID
-        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
-
-        // Filter the list of appointments by patient's hospitalID
-        List<Appointment> patientAppointments = appointments.stream()
-                .filter(appointment -> appointment.getPatientId().equals(patient.getHospitalID()))
-                .collect(Collectors.toList());
+        // Look up the patient's appointments by hospitalID
+        List<Appointment> patientAppointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
         // Check if the filtered list of appointments is empty
         if (patientAppointments.isEmpty()) {
@@ -530,10 +536,9 @@ public class PatientController {
         }
 
         // Define appointment booking window
-        LocalDate startDate = LocalDate.of(2024, 11, 17);
-        LocalDate endDate = LocalDate.of(2024, 12, 18);
-        LocalDateTime startDateTime = LocalDateTime.of(startDate, LocalTime.of(11, 30));
-        LocalDateTime endDateTime = LocalDateTime.of(endDate, LocalTime.of(11, 0));
+        LocalDate startDate = BOOKING_WINDOW_START.toLocalDate();
+        LocalDate endDate = BOOKING_WINDOW_END.toLocalDate();
+        LocalDateTime startDateTime = BOOKING_WINDOW_START;
 
         if (date.isBefore(startDate) || date.isAfter(endDate) ||
                 (date.isEqual(startDate) && date.atStartOfDay().isBefore(startDateTime))) {
@@ -554,14 +559,12 @@ public class PatientController {
     }
     public void viewPastRecords(Patient patient) {
         // Fetch all the appointments for this patient
-        AppointmentService appointmentService=new AppointmentService();
-        List<Appointment> allAppointments = appointmentService.viewScheduledAppointments();
+        List<Appointment> patientAppointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
-        // Filter out the appointments that are completed and belong to this patient
+        // Filter out the appointments that are completed
         List<Appointment> completedAppointments = new ArrayList<>();
-        for (Appointment appointment : allAppointments) {
-            if (appointment.getPatientId().equals(patient.getHospitalID()) &&
-                    enums.AppointmentStatus.COMPLETED.equals(appointment.getStatus())) {
+        for (Appointment appointment : patientAppointments) {
+            if (enums.AppointmentStatus.COMPLETED.equals(appointment.getStatus())) {
                 completedAppointments.add(appointment);
             }
         }
@@ -601,7 +604,7 @@ public class PatientController {
     }
 
     public void changePassword(Patient patient) {
-        UserService userService=new UserService();
+        UserService userService=ApplicationContext.getInstance().getUserService();
         Scanner scanner = new Scanner(System.in);
 
         // Prompt for old password
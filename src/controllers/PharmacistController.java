@@ -4,6 +4,7 @@ import models.Appointment;
 import models.Inventory;
 import models.InventoryDisplay;
 import models.ReplenishmentRequest;
+import services.ApplicationContext;
 import services.PharmacistService;
 import services.UserService;
 import stores.InventoryDataStore;
@@ -51,9 +52,9 @@ public class PharmacistController {
         this.replenishmentService = replenishmentService;
 
         // Initialize only necessary views
-        this.userService = new UserService();
+        this.userService = ApplicationContext.getInstance().getUserService();
         this.medicalInventoryView = new MedicalInventoryView(inventoryService);
-        this.appointmentOutcomeRecordView = new AppointmentOutcomeRecordView();
+        this.appointmentOutcomeRecordView = new AppointmentOutcomeRecordView(appointmentService);
     }
 
     // Method to view medication inventory
@@ -77,7 +78,7 @@ public class PharmacistController {
         Scanner scanner = new Scanner(System.in);
         List<String> medicines = new ArrayList<>();
         
-     InventoryDataStore inventoryDataStore = new InventoryDataStore();
+     InventoryDataStore inventoryDataStore = ApplicationContext.getInstance().getInventoryDataStore();
 		// Load all medicines from the inventory
         List<Inventory> inventoryList = inventoryDataStore .getInventoryList();
         List<String> validMedicines = new ArrayList<>();
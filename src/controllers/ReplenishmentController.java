@@ -4,11 +4,12 @@ import java.util.List;
 
 import enums.StatusEnum;
 import models.ReplenishmentRequest;
+import services.ApplicationContext;
 import services.ReplenishmentService;
 
 public class ReplenishmentController {
 
-    private final ReplenishmentService service = new ReplenishmentService();
+    private final ReplenishmentService service = ApplicationContext.getInstance().getReplenishmentService();
 
     // Pharmacist actions
     public List<ReplenishmentRequest> sendReplenishmentRequest(List<String> medicines) {
@@ -0,0 +1,344 @@
+package controllers;
+
+import services.AppointmentService;
+import services.ScheduleService;
+import services.UserService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The {@code SessionManager} class lets one process serve many terminals at once. Every
+ * connection to a local port gets its own login session, run by its own {@link UserController}
+ * on its own thread, and all sessions share the services built by
+ * {@link services.ApplicationContext}, so the data is held in memory once however many
+ * terminals are connected.
+ * <p>
+ * The views read {@code System.in} and write {@code System.out} directly, so the manager
+ * replaces both with streams that forward to the connection of the session running on the
+ * calling thread, and to the console on any other thread. The services are not written for
+ * concurrent use, so sessions take turns: a session holds the services lock while it runs and
+ * releases it while it waits for its user to type, which is where a menu spends nearly all of
+ * its time.
+ * <p>
+ * Start the application with {@code -Dhms.sessionPort=<port>} to serve sessions on that port
+ * of the loopback interface, and connect a terminal with, for example, {@code nc localhost <port>}.
+ */
+public class SessionManager {
+    public static final int SESSION_PORT = Integer.getInteger("hms.sessionPort", 0); // Port to serve sessions on, or 0 for a single console session
+    private static final int MAX_SESSIONS = Integer.getInteger("hms.maxSessions", 64); // Connections beyond this are turned away
+
+    private static final ReentrantLock SERVICES_LOCK = new ReentrantLock(true); // Held by the session that is using the services
+    private static final ThreadLocal<Session> CURRENT_SESSION = new ThreadLocal<>(); // Session run by the calling thread, if any
+    private static boolean streamsInstalled;
+
+    private final UserService userService;
+    private final int port;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextSessionId = new AtomicInteger(1);
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    /**
+     * Constructs a SessionManager that serves sessions on the given port.
+     *
+     * @param userService the shared UserService used to log users in
+     * @param port        the loopback port to accept terminals on
+     */
+    public SessionManager(UserService userService, int port) {
+        this.userService = userService;
+        this.port = port;
+    }
+
+    /**
+     * Serves sessions until {@code stop} is typed on the console, then ends every session
+     * and waits for them to write out their changes.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public void serve() throws IOException {
+        start();
+        System.out.println("Serving sessions on port " + serverSocket.getLocalPort() + ". Type 'stop' to shut down.");
+        Scanner console = new Scanner(System.in);
+        while (console.hasNextLine()) {
+            String command = console.nextLine().trim();
+            if (command.equalsIgnoreCase("stop")) {
+                stop();
+                return;
+            } else if (command.equalsIgnoreCase("sessions")) {
+                System.out.println(sessions.size() + " active session(s).");
+            } else if (command.equalsIgnoreCase("logins")) {
+                userService.getLoginThrottle().printMetrics();
+            } else if (!command.isEmpty()) {
+                System.out.println("Commands: sessions, logins, stop");
+            }
+        }
+        // No console to read from; serve until the process is killed
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Opens the port and starts accepting terminals in the background.
+     *
+     * @throws IOException if the port cannot be opened
+     */
+    public synchronized void start() throws IOException {
+        installStreams();
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptSessions, "session-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Stops accepting terminals, disconnects every session and waits for their threads to
+     * finish.
+     */
+    public synchronized void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.out.println("Error closing session port: " + e.getMessage());
+        }
+        List<Session> active = new ArrayList<>(sessions);
+        for (Session session : active) {
+            session.close();
+        }
+        for (Session session : active) {
+            try {
+                session.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        System.out.println("All sessions ended.");
+    }
+
+    /**
+     * Returns the number of sessions currently connected.
+     *
+     * @return the number of active sessions
+     */
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    private void acceptSessions() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                if (sessions.size() >= MAX_SESSIONS) {
+                    socket.getOutputStream().write("All terminals are in use. Please try again later.\n".getBytes());
+                    socket.close();
+                    continue;
+                }
+                Session session = new Session(nextSessionId.getAndIncrement(), socket);
+                session.thread = new Thread(() -> runSession(session), "session-" + session.id);
+                sessions.add(session);
+                session.thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Error accepting session: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Runs the login menu for one terminal, holding the services lock except while waiting for input
+    private void runSession(Session session) {
+        CURRENT_SESSION.set(session);
+        SERVICES_LOCK.lock();
+        try {
+            new UserController(userService).run();
+        } catch (SessionClosedError e) {
+            // The terminal disconnected part way through a menu
+        } catch (RuntimeException e) {
+            System.out.println("Error encountered: " + e.getMessage());
+        } finally {
+            // Write out what the session changed, as logging out would
+            AppointmentService.flushAll();
+            ScheduleService.getInstance().flush();
+            SERVICES_LOCK.unlock();
+            CURRENT_SESSION.remove();
+            sessions.remove(session);
+            session.close();
+        }
+    }
+
+    // Replaces System.in, System.out and System.err with streams that follow the current session
+    private static synchronized void installStreams() {
+        if (streamsInstalled) {
+            return;
+        }
+        System.setIn(new SessionInputStream(System.in));
+        System.setOut(new PrintStream(new SessionOutputStream(System.out, false), true));
+        System.setErr(new PrintStream(new SessionOutputStream(System.err, true), true));
+        streamsInstalled = true;
+    }
+
+    /**
+     * One connected terminal.
+     */
+    private static final class Session {
+        private final int id;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private Thread thread;
+
+        private Session(int id, Socket socket) throws IOException {
+            this.id = id;
+            this.socket = socket;
+            this.in = socket.getInputStream();
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        // Reads the user's input, letting other sessions use the services meanwhile
+        private int read(byte[] buffer, int offset, int length) {
+            int holds = SERVICES_LOCK.getHoldCount();
+            int read;
+            try {
+                out.flush(); // Show the prompt before waiting, as a terminal would
+                for (int i = 0; i < holds; i++) {
+                    SERVICES_LOCK.unlock();
+                }
+                read = in.read(buffer, offset, length);
+            } catch (IOException e) {
+                read = -1;
+            } finally {
+                for (int i = 0; i < holds; i++) {
+                    SERVICES_LOCK.lock();
+                }
+            }
+            if (read < 0) {
+                // Menus retry on bad input, so end of input must end the session rather than be retried
+                throw new SessionClosedError();
+            }
+            return read;
+        }
+
+        private void close() {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                // The terminal is already gone
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.out.println("Error closing session " + id + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thrown on a session's thread when its terminal disconnects. It is an {@code Error} so that
+     * the {@code catch (Exception e)} retry loops of the menus do not swallow it.
+     */
+    private static final class SessionClosedError extends Error {
+        private static final long serialVersionUID = 1L;
+
+        private SessionClosedError() {
+            super("Session closed", null, false, false);
+        }
+    }
+
+    /**
+     * Reads from the current session's terminal, or from the console outside a session.
+     */
+    private static final class SessionInputStream extends InputStream {
+        private final InputStream console;
+
+        private SessionInputStream(InputStream console) {
+            this.console = console;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            Session session = CURRENT_SESSION.get();
+            if (session == null) {
+                return console.read(buffer, offset, length);
+            }
+            return length == 0 ? 0 : session.read(buffer, offset, length);
+        }
+
+        @Override
+        public int available() throws IOException {
+            Session session = CURRENT_SESSION.get();
+            return session == null ? console.available() : session.in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Views close their Scanner on exit; a session's connection is closed when the session ends
+            if (CURRENT_SESSION.get() == null) {
+                console.close();
+            }
+        }
+    }
+
+    /**
+     * Writes to the current session's terminal, or to the console outside a session.
+     */
+    private static final class SessionOutputStream extends OutputStream {
+        private final OutputStream console;
+        private final boolean flushEachWrite; // Whether to flush a session's output after every write, as System.err does
+
+        private SessionOutputStream(OutputStream console, boolean flushEachWrite) {
+            this.console = console;
+            this.flushEachWrite = flushEachWrite;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            Session session = CURRENT_SESSION.get();
+            if (session == null) {
+                console.write(buffer, offset, length);
+                return;
+            }
+            session.out.write(buffer, offset, length);
+            if (flushEachWrite) {
+                session.out.flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            Session session = CURRENT_SESSION.get();
+            if (session == null) {
+                console.flush();
+            } else {
+                session.out.flush();
+            }
+        }
+    }
+}
@@ -1,19 +1,14 @@
 package controllers;
 
 import services.UserService;
-import services.BillingService;
+import services.ApplicationContext;
 import views.UserView;
 import enums.UserRole;
 import models.User;
 import services.AppointmentService;
-import stores.InventoryDataStore;
-import services.InventoryService;
-import services.PatientService;
 import services.PharmacistService;
-import services.ReplenishmentService;
 import services.DoctorService;
 import services.ScheduleService;
-import services.AppointmentRequestService;
 import services.MedicalRecordService;
 import views.PharmacistView;
 import views.PatientView;
@@ -87,11 +82,9 @@ public class UserController {
     }
 
     private void navigateToPatientPage(User user) {
-        AppointmentService appointmentService = new AppointmentService();
-        BillingService billingService=new BillingService();
+        ApplicationContext context = ApplicationContext.getInstance();
         BillingController billingController=new BillingController();
-        PatientService patientService = new PatientService(userService);
-        PatientController patientController = new PatientController(patientService, appointmentService);
+        PatientController patientController = new PatientController(context.getPatientService(), context.getAppointmentService());
         PatientView patientView = new PatientView(patientController, userService, billingController);
 
         // Start the patient operations (menu)
@@ -100,14 +93,10 @@ public class UserController {
     }
 
     private void navigateToPharmacistPage(User user) {
-        AppointmentService appointmentService = new AppointmentService();
-        InventoryDataStore inventoryDataStore = new InventoryDataStore();
-        ReplenishmentService replenishmentService = new ReplenishmentService();
-        InventoryService inventoryService = new InventoryService(inventoryDataStore);
-        PharmacistService pharmacistService = new PharmacistService(userService, appointmentService, inventoryService);
-        PatientService patientService = new PatientService(userService);
-        PharmacistController pharmacistController = new PharmacistController(pharmacistService, inventoryService, appointmentService, replenishmentService);
-        PharmacistView pharmacistView = new PharmacistView(pharmacistController, pharmacistService, userService, patientService);
+        ApplicationContext context = ApplicationContext.getInstance();
+        PharmacistService pharmacistService = context.getPharmacistService();
+        PharmacistController pharmacistController = new PharmacistController(pharmacistService, context.getInventoryService(), context.getAppointmentService(), context.getReplenishmentService());
+        PharmacistView pharmacistView = new PharmacistView(pharmacistController, pharmacistService, userService, context.getPatientService());
 
         // Start the pharmacist operations (menu)
         System.out.println("Navigating to Pharmacist view...");
@@ -115,11 +104,11 @@ public class UserController {
     }
 
     private void navigateToDoctorPage(User user) {
-        ScheduleService scheduleService = new ScheduleService();
-        MedicalRecordService medicalRecordService = new MedicalRecordService();
-        AppointmentService appointmentService = new AppointmentService();
-        AppointmentRequestService appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
-        DoctorService doctorService = new DoctorService(userService, scheduleService, medicalRecordService, appointmentService);
+        ApplicationContext context = ApplicationContext.getInstance();
+        ScheduleService scheduleService = context.getScheduleService();
+        MedicalRecordService medicalRecordService = context.getMedicalRecordService();
+        AppointmentService appointmentService = context.getAppointmentService();
+        DoctorService doctorService = context.getDoctorService();
         DoctorController doctorController = new DoctorController(doctorService, scheduleService, medicalRecordService, appointmentService);
         DoctorView doctorView = new DoctorView(doctorController, doctorService, userService, scheduleService, medicalRecordService, appointmentService);
 
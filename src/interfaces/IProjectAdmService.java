@@ -1,5 +1,6 @@
 package interfaces;
 
+import enums.UserRole;
 import models.Staff;
 import models.Inventory;
 import java.util.List;
@@ -35,6 +36,16 @@ public interface IProjectAdmService {
      */
     List<Staff> getAllStaff();
 
+    /**
+     * Retrieves one page of hospital staff members in staff ID order.
+     *
+     * @param role         The role to list, or null for all staff.
+     * @param afterStaffId The last staff ID of the previous page, or null for the first page.
+     * @param pageSize     The maximum number of staff members to return.
+     * @return A list of Staff objects on the page.
+     */
+    List<Staff> getStaffPage(UserRole role, String afterStaffId, int pageSize);
+
     // Inventory Management
 
     /**
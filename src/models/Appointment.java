@@ -1,21 +1,16 @@
 package models;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import enums.AppointmentStatus;
 import enums.MedicationStatus;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import models.Medication;
+import stores.CsvReader;
+import stores.CsvRow;
 
 public class Appointment {
-	private static final String APPOINTMENT_FILE = "data/Appointment.csv";
-    private static Map<String, Appointment> appointmentCache = new HashMap<>();
     private final String appointmentId;
     private final String patientId;
     private final String doctorId;
@@ -69,22 +64,26 @@ public class Appointment {
 
     // Static method to create an Appointment from a CSV string line
     public static Appointment fromString(String line) {
-        String[] parts = line.split(",");
-        if (parts.length < 10) {
+        return fromRow(CsvReader.parse(line));
+    }
+
+    // Static method to create an Appointment from a CSV record
+    public static Appointment fromRow(CsvRow parts) {
+        if (parts.size() < 10) {
             return null; // Ensure that there are enough fields
         }
 
-        String appointmentId = parts[0].replace("\"", "").trim();
-        String patientId = parts[1].trim();
-        String doctorId = parts[2].trim();
-        LocalDateTime appointmentDateTime = LocalDateTime.parse(parts[3].trim());
-        AppointmentStatus status = AppointmentStatus.valueOf(parts[4].trim());
-        String consultationNotes = parts[5].trim();
-        String serviceProvided = parts[6].trim();
+        String appointmentId = parts.getTrimmed(0);
+        String patientId = parts.getTrimmed(1);
+        String doctorId = parts.getTrimmed(2);
+        LocalDateTime appointmentDateTime = parts.getDateTime(3);
+        AppointmentStatus status = parts.getEnum(4, AppointmentStatus.class);
+        String consultationNotes = parts.getTrimmed(5);
+        String serviceProvided = parts.getTrimmed(6);
 
         // Parsing medications and quantities, assuming they are separated by semicolons
-        String[] medicationParts = parts[7].split(";");
-        String[] quantityParts = parts[8].split(";");
+        String[] medicationParts = parts.getString(7).split(";");
+        String[] quantityParts = parts.getString(8).split(";");
 
         // Initialize the Appointment
         Appointment appointment = new Appointment(appointmentId, patientId, doctorId, appointmentDateTime);
@@ -116,7 +115,7 @@ public class Appointment {
         }
 
         // Set the medication status
-        appointment.setMedicationStatus(MedicationStatus.valueOf(parts[9].trim()));
+        appointment.setMedicationStatus(parts.getEnum(9, MedicationStatus.class));
 
         return appointment;
     }
@@ -163,31 +162,4 @@ public class Appointment {
     public void setQuantities(List<Integer> prescribedQuantities) {
         quantities=prescribedQuantities;
     }
-    
-    public static Appointment getAppointmentById(String appointmentId) {
-        // Check cache first for the appointment
-        if (appointmentCache.containsKey(appointmentId)) {
-            return appointmentCache.get(appointmentId);
-        }
-
-        // Load the appointment from file if not in cache
-        try (BufferedReader reader = new BufferedReader(new FileReader(APPOINTMENT_FILE))) {
-            String line;
-            reader.readLine(); // Skip header line
-            while ((line = reader.readLine()) != null) {
-                Appointment appointment = Appointment.fromString(line);
-
-                // Check if appointment is successfully created and matches the ID
-                if (appointment != null && appointment.getAppointmentId().equals(appointmentId)) {
-                    appointmentCache.put(appointmentId, appointment); // Cache it for future calls
-                    return appointment;
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading appointment record: " + e.getMessage());
-        }
-
-        System.err.println("Appointment ID " + appointmentId + " not found.");
-        return null; // Return null if appointment not found
-    }
 }
@@ -2,7 +2,8 @@ package models;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import stores.CsvReader;
+import stores.CsvRow;
 
 /**
  * Represents an appointment request in the healthcare system.
@@ -164,17 +165,23 @@ public class AppointmentRequest {
      * @return An AppointmentRequest object created from the CSV string, or null if the input is invalid.
      */
     public static AppointmentRequest fromString(String csv) {
-        String[] fields = csv.split(",");
-        
-        if (fields.length == 6) { // Ensure we have the correct number of fields
-            String requestId = fields[0].replace("\"", "").trim();
-            String doctorId = fields[1];
-            String patientId = fields[2];
-            //LocalDate requestedDate = LocalDate.parse(fields[3]);
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate requestedDate = LocalDate.parse(fields[3], formatter);
-            LocalTime requestedTimeSlot = LocalTime.parse(fields[4]);
-            String status = fields[5];
+        return fromRow(CsvReader.parse(csv));
+    }
+
+    /**
+     * Creates an AppointmentRequest from a CSV record.
+     *
+     * @param fields The CSV record representing an appointment request.
+     * @return An AppointmentRequest object created from the record, or null if the input is invalid.
+     */
+    public static AppointmentRequest fromRow(CsvRow fields) {
+        if (fields.size() == 6) { // Ensure we have the correct number of fields
+            String requestId = fields.getTrimmed(0);
+            String doctorId = fields.getString(1);
+            String patientId = fields.getString(2);
+            LocalDate requestedDate = fields.getDate(3);
+            LocalTime requestedTimeSlot = fields.getTime(4);
+            String status = fields.getString(5);
 
             return new AppointmentRequest(requestId, patientId, doctorId, requestedDate, requestedTimeSlot, status);
         }
@@ -1,5 +1,8 @@
 package models;
 
+import stores.CsvReader;
+import stores.CsvRow;
+
 public class Billing {
     private String invoiceId;
     private String patientId;
@@ -76,12 +79,10 @@ public class Billing {
     }
 
     public static Billing fromCSV(String line) {
-        // Split the line by comma and remove surrounding quotes from appointmentId if present
-        String[] fields = line.split(",");
-        
-        // Handle the case where appointmentId might have quotes around it
-        String appointmentId = fields[3].replace("\"", "").trim();
-        
-        return new Billing(fields[0], fields[1], fields[2], appointmentId, Double.parseDouble(fields[4]), fields[5]);
+        // Split the line into fields; quotes around the appointmentId are removed by the reader
+        CsvRow fields = CsvReader.parse(line);
+        String appointmentId = fields.getTrimmed(3);
+
+        return new Billing(fields.getString(0), fields.getString(1), fields.getString(2), appointmentId, fields.getDouble(4), fields.getString(5));
     }
 }
@@ -0,0 +1,505 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Represents the calendar of a single doctor in a compact form.
+ * Slots are half-hour periods from 09:00 to 16:30, 16 per day. Which slots exist on a given
+ * day comes from a recurring weekly working-hours template, so no day has to be generated
+ * in advance. Only exceptions to the template are stored: for every day that has any, the
+ * calendar keeps a 16-bit mask of blocked slots and a 16-bit mask of booked slots, and
+ * patient IDs are stored in a separate sparse map for booked slots only.
+ * <p>
+ * Bookings are kept ordered by date and time, so range queries such as "the next bookings
+ * after now" only visit the bookings they return.
+ * <p>
+ * A calendar is safe to share between threads. Each calendar has its own lock, so changes to
+ * different doctors' calendars never wait on each other, and
+ * {@link #compareAndSetStatus(LocalDate, LocalTime, String, String)} makes check-then-set
+ * changes such as booking a free slot atomic.
+ */
+public class DoctorCalendar {
+    public static final String AVAILABLE = "Available"; // Status of a free slot
+    public static final String BLOCKED = "Blocked"; // Status of a slot blocked by the doctor
+    public static final LocalTime FIRST_SLOT = LocalTime.of(9, 0); // Start time of the first slot of the day
+    public static final int SLOT_MINUTES = 30; // Length of a slot in minutes
+    public static final int SLOTS_PER_DAY = 16; // Number of slots per day (09:00 to 16:30)
+    public static final int FULL_DAY = (1 << SLOTS_PER_DAY) - 1; // Mask with every slot of a day set
+
+    private final String doctorID; // The ID of the doctor owning this calendar
+    private final int[] workingHours; // Template: slot mask of working hours for each day of the week
+    private long baseDay = Long.MIN_VALUE; // Epoch day stored at index 0 of the mask arrays
+    private char[] blockedMasks = new char[0]; // Per day: slots blocked by the doctor
+    private char[] bookedMasks = new char[0]; // Per day: slots that hold a patient booking
+    private final NavigableMap<Long, String> bookings = new TreeMap<>(); // Slot key -> patient ID, booked slots only, in time order
+
+    /**
+     * Constructs an empty calendar for the specified doctor, working every slot of every day.
+     *
+     * @param doctorID The ID of the doctor.
+     */
+    public DoctorCalendar(String doctorID) {
+        this(doctorID, defaultWorkingHours());
+    }
+
+    /**
+     * Constructs an empty calendar for the specified doctor with a weekly working-hours template.
+     *
+     * @param doctorID The ID of the doctor.
+     * @param workingHours The slot mask of working hours for each day of the week, Monday first.
+     */
+    public DoctorCalendar(String doctorID, int[] workingHours) {
+        this.doctorID = doctorID;
+        this.workingHours = Arrays.copyOf(workingHours, 7);
+    }
+
+    /**
+     * Returns the default working-hours template: every slot of every day of the week.
+     *
+     * @return The template, one slot mask per day of the week, Monday first.
+     */
+    public static int[] defaultWorkingHours() {
+        int[] template = new int[7];
+        Arrays.fill(template, FULL_DAY);
+        return template;
+    }
+
+    /**
+     * Returns the ID of the doctor owning this calendar.
+     *
+     * @return The doctor ID.
+     */
+    public String getDoctorID() {
+        return doctorID;
+    }
+
+    /**
+     * Returns the slot index (0-15) of a time, or -1 if the time is not the start of a slot.
+     *
+     * @param time The time to convert.
+     * @return The slot index, or -1 if the time does not fall on a slot boundary.
+     */
+    public static int slotIndex(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute() - (FIRST_SLOT.getHour() * 60 + FIRST_SLOT.getMinute());
+        if (time.getSecond() != 0 || time.getNano() != 0 || minutes < 0 || minutes % SLOT_MINUTES != 0) {
+            return -1;
+        }
+        int slot = minutes / SLOT_MINUTES;
+        return slot < SLOTS_PER_DAY ? slot : -1;
+    }
+
+    /**
+     * Returns the start time of a slot index.
+     *
+     * @param slot The slot index (0-15).
+     * @return The start time of the slot.
+     */
+    public static LocalTime slotTime(int slot) {
+        return FIRST_SLOT.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    /**
+     * Returns the mask of all slots between two times of the same day, both inclusive.
+     *
+     * @param from The first slot time.
+     * @param to The last slot time.
+     * @return The mask of the slots in the range, or 0 if the range is empty or off the slot grid.
+     */
+    public static int rangeMask(LocalTime from, LocalTime to) {
+        int first = from.isBefore(FIRST_SLOT) ? 0 : slotIndex(from);
+        int last = to.isAfter(slotTime(SLOTS_PER_DAY - 1)) ? SLOTS_PER_DAY - 1 : slotIndex(to);
+        if (first < 0 || last < 0 || first > last) {
+            return 0;
+        }
+        return (FULL_DAY >>> (SLOTS_PER_DAY - 1 - last)) & (FULL_DAY << first);
+    }
+
+    /**
+     * Returns whether the calendar has any slot on the given date.
+     *
+     * @param date The date to check.
+     * @return {@code true} if the date is in the calendar, {@code false} otherwise.
+     */
+    public synchronized boolean hasDay(LocalDate date) {
+        return getDefinedMask(date) != 0;
+    }
+
+    /**
+     * Returns the mask of working-hour slots on a date, as given by the weekly template.
+     *
+     * @param date The date.
+     * @return The 16-bit mask of working-hour slots.
+     */
+    public int getWorkingMask(LocalDate date) {
+        return workingHours[date.getDayOfWeek().getValue() - 1];
+    }
+
+    /**
+     * Returns the mask of slots that exist on a date: working-hour slots plus any slot that
+     * still holds a booking or block.
+     *
+     * @param date The date.
+     * @return The 16-bit mask of existing slots.
+     */
+    public synchronized int getDefinedMask(LocalDate date) {
+        return getWorkingMask(date) | getBookedMask(date) | getBlockedMask(date);
+    }
+
+    /**
+     * Returns the mask of available slots on a date.
+     *
+     * @param date The date.
+     * @return The 16-bit mask of available slots.
+     */
+    public synchronized int getAvailableMask(LocalDate date) {
+        return getWorkingMask(date) & ~getBookedMask(date) & ~getBlockedMask(date);
+    }
+
+    /**
+     * Returns the mask of booked slots on a date.
+     *
+     * @param date The date.
+     * @return The 16-bit mask of booked slots.
+     */
+    public synchronized int getBookedMask(LocalDate date) {
+        int index = indexOf(date.toEpochDay());
+        return index < 0 ? 0 : bookedMasks[index];
+    }
+
+    /**
+     * Returns the mask of blocked slots on a date.
+     *
+     * @param date The date.
+     * @return The 16-bit mask of blocked slots.
+     */
+    public synchronized int getBlockedMask(LocalDate date) {
+        int index = indexOf(date.toEpochDay());
+        return index < 0 ? 0 : blockedMasks[index];
+    }
+
+    /**
+     * Returns the status of a slot: "Available", "Blocked" or the ID of the patient who booked it.
+     *
+     * @param date The date of the slot.
+     * @param time The start time of the slot.
+     * @return The status of the slot, or {@code null} if the slot is not in the calendar.
+     */
+    public synchronized String getStatus(LocalDate date, LocalTime time) {
+        int slot = slotIndex(time);
+        if (slot < 0) {
+            return null;
+        }
+        int bit = 1 << slot;
+        if ((getBookedMask(date) & bit) != 0) {
+            return bookings.get(slotKey(date.toEpochDay(), slot));
+        }
+        if ((getBlockedMask(date) & bit) != 0) {
+            return BLOCKED;
+        }
+        return (getWorkingMask(date) & bit) != 0 ? AVAILABLE : null;
+    }
+
+    /**
+     * Sets the status of a slot. Setting a slot to "Available" removes any exception stored
+     * for it, so the slot falls back to the working-hours template.
+     * Any status other than "Available" or "Blocked" is treated as a patient ID.
+     *
+     * @param date The date of the slot.
+     * @param time The start time of the slot.
+     * @param status The new status of the slot.
+     * @return {@code true} if the status was set, {@code false} if the time is not on the slot grid.
+     */
+    public synchronized boolean setStatus(LocalDate date, LocalTime time, String status) {
+        int slot = slotIndex(time);
+        if (slot < 0) {
+            return false;
+        }
+        setSlotStatus(date.toEpochDay(), slot, status);
+        return true;
+    }
+
+    /**
+     * Sets the status of a slot given by its epoch day and slot index, for loaders that parse
+     * dates and times without creating {@code LocalDate} and {@code LocalTime} objects.
+     *
+     * @param epochDay The date of the slot, as a count of days since 1970-01-01.
+     * @param slot The slot index (0-15).
+     * @param status The new status of the slot.
+     */
+    public synchronized void setSlotStatus(long epochDay, int slot, String status) {
+        char bit = (char) (1 << slot);
+        if (AVAILABLE.equals(status)) {
+            int index = indexOf(epochDay);
+            if (index >= 0) {
+                blockedMasks[index] &= ~bit;
+                bookedMasks[index] &= ~bit;
+            }
+            bookings.remove(slotKey(epochDay, slot));
+        } else if (BLOCKED.equals(status)) {
+            int index = ensureDay(epochDay);
+            blockedMasks[index] |= bit;
+            bookedMasks[index] &= ~bit;
+            bookings.remove(slotKey(epochDay, slot));
+        } else {
+            int index = ensureDay(epochDay);
+            blockedMasks[index] &= ~bit;
+            bookedMasks[index] |= bit;
+            bookings.put(slotKey(epochDay, slot), status);
+        }
+    }
+
+    /**
+     * Sets the status of a slot only if its current status is the expected one. The check and
+     * the change happen atomically, so when several threads try to book the same free slot,
+     * exactly one of them succeeds.
+     *
+     * @param date The date of the slot.
+     * @param time The start time of the slot.
+     * @param expected The status the slot must have for the change to happen.
+     * @param status The new status of the slot.
+     * @return {@code true} if the status was changed, {@code false} if the slot had a different status.
+     */
+    public synchronized boolean compareAndSetStatus(LocalDate date, LocalTime time, String expected, String status) {
+        return expected.equals(getStatus(date, time)) && setStatus(date, time, status);
+    }
+
+    /**
+     * Changes every slot that starts in [from, to) and has the expected status to the new
+     * status. Only "Available" and "Blocked" are supported, which lets whole days be changed
+     * with one mask operation each. Booked slots are never changed.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @param expected The status a slot must have to be changed.
+     * @param status The new status of the slots.
+     * @return The slots that were changed, ordered by date and time, with their new status.
+     * @throws IllegalArgumentException if a status other than "Available" or "Blocked" is given.
+     */
+    public synchronized List<Schedule> compareAndSetRange(LocalDateTime from, LocalDateTime to, String expected, String status) {
+        boolean block = AVAILABLE.equals(expected) && BLOCKED.equals(status);
+        if (!block && !(BLOCKED.equals(expected) && AVAILABLE.equals(status))) {
+            throw new IllegalArgumentException("Range changes must be between Available and Blocked: " + expected + " -> " + status);
+        }
+        List<Schedule> changed = new ArrayList<>();
+        long fromKey = firstSlotKeyAtOrAfter(from);
+        long toKey = firstSlotKeyAtOrAfter(to);
+        if (fromKey >= toKey) {
+            return changed;
+        }
+        for (long day = Math.floorDiv(fromKey, SLOTS_PER_DAY); day <= Math.floorDiv(toKey - 1, SLOTS_PER_DAY); day++) {
+            int first = (int) Math.max(fromKey - day * SLOTS_PER_DAY, 0);
+            int end = (int) Math.min(toKey - day * SLOTS_PER_DAY, SLOTS_PER_DAY);
+            int range = (FULL_DAY << first) & (FULL_DAY >>> (SLOTS_PER_DAY - end));
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int mask = range & (block ? getAvailableMask(date) : getBlockedMask(date));
+            if (mask == 0) {
+                continue;
+            }
+            int index = ensureDay(day);
+            blockedMasks[index] = (char) (block ? blockedMasks[index] | mask : blockedMasks[index] & ~mask);
+            for (LocalTime time : slotTimes(mask)) {
+                changed.add(new Schedule(doctorID, date, time, status));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the start times of the available slots on a date, in time order.
+     *
+     * @param date The date.
+     * @return A list of available slot times.
+     */
+    public synchronized List<LocalTime> getAvailableSlots(LocalDate date) {
+        return slotTimes(getAvailableMask(date));
+    }
+
+    /**
+     * Returns the number of available slots on a date.
+     *
+     * @param date The date.
+     * @return The number of available slots, 0 to 16.
+     */
+    public synchronized int getFreeSlotCount(LocalDate date) {
+        return Integer.bitCount(getAvailableMask(date));
+    }
+
+    /**
+     * Returns the first available slot that starts at or after the given time and no later
+     * than the given date. Days without free slots are skipped on their free-slot count alone.
+     *
+     * @param from The earliest start time of the slot.
+     * @param until The last date to search, inclusive.
+     * @return The start of the first available slot, or {@code null} if there is none in the range.
+     */
+    public synchronized LocalDateTime nextAvailableSlot(LocalDateTime from, LocalDate until) {
+        long key = firstSlotKeyAtOrAfter(from);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(key, SLOTS_PER_DAY));
+        int firstSlot = Math.floorMod(key, SLOTS_PER_DAY);
+        for (; !date.isAfter(until); date = date.plusDays(1), firstSlot = 0) {
+            int mask = getAvailableMask(date) & (FULL_DAY << firstSlot);
+            if (mask != 0) {
+                return LocalDateTime.of(date, slotTime(Integer.numberOfTrailingZeros(mask)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all booked slots in the calendar, ordered by date and time.
+     *
+     * @return A list of booked slots.
+     */
+    public synchronized List<Schedule> getBookedSlots() {
+        return toSchedules(bookings, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the booked slots that start in the range [from, to), ordered by date and time.
+     *
+     * @param from The start of the range, inclusive.
+     * @param to The end of the range, exclusive.
+     * @return A list of booked slots in the range.
+     */
+    public synchronized List<Schedule> getBookedSlots(LocalDateTime from, LocalDateTime to) {
+        long fromKey = firstSlotKeyAtOrAfter(from);
+        long toKey = firstSlotKeyAtOrAfter(to);
+        if (fromKey >= toKey) {
+            return new ArrayList<>();
+        }
+        return toSchedules(bookings.subMap(fromKey, true, toKey, false), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the next booked slots that start strictly after the given time, ordered by date and time.
+     *
+     * @param after The time after which bookings are returned.
+     * @param limit The maximum number of bookings to return.
+     * @return A list of at most {@code limit} booked slots.
+     */
+    public synchronized List<Schedule> getUpcomingBookings(LocalDateTime after, int limit) {
+        return toSchedules(bookings.tailMap(firstSlotKeyAtOrAfter(after.plusNanos(1)), true), limit);
+    }
+
+    /**
+     * Returns the slots that differ from the working-hours template (blocked or booked slots),
+     * ordered by date and time.
+     *
+     * @return A list of the exception slots.
+     */
+    public synchronized List<Schedule> getExceptionSlots() {
+        List<Schedule> slots = new ArrayList<>();
+        for (int index = 0; index < blockedMasks.length; index++) {
+            int exceptions = blockedMasks[index] | bookedMasks[index];
+            if (exceptions != 0) {
+                LocalDate date = LocalDate.ofEpochDay(baseDay + index);
+                for (LocalTime time : slotTimes(exceptions)) {
+                    slots.add(new Schedule(doctorID, date, time, getStatus(date, time)));
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Returns every slot between two dates, both inclusive, ordered by date and time.
+     * Slots are computed from the working-hours template and the stored exceptions.
+     *
+     * @param from The first date.
+     * @param to The last date.
+     * @return A list of all slots in the range.
+     */
+    public synchronized List<Schedule> getSlots(LocalDate from, LocalDate to) {
+        List<Schedule> slots = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (LocalTime time : slotTimes(getDefinedMask(date))) {
+                slots.add(new Schedule(doctorID, date, time, getStatus(date, time)));
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Converts a slot mask into the list of slot start times it contains, in time order.
+     *
+     * @param mask The 16-bit slot mask.
+     * @return A list of slot times.
+     */
+    public static List<LocalTime> slotTimes(int mask) {
+        List<LocalTime> times = new ArrayList<>(Integer.bitCount(mask));
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            times.add(slotTime(Integer.numberOfTrailingZeros(bits)));
+        }
+        return times;
+    }
+
+    // Unique key of a slot across days; keys of consecutive slots are consecutive across day boundaries
+    private static long slotKey(long epochDay, int slot) {
+        return epochDay * SLOTS_PER_DAY + slot;
+    }
+
+    // Key of the first slot that starts at or after the given time
+    private static long firstSlotKeyAtOrAfter(LocalDateTime time) {
+        long nanos = time.toLocalTime().toNanoOfDay() - FIRST_SLOT.toNanoOfDay();
+        long slotNanos = SLOT_MINUTES * 60_000_000_000L;
+        long slot = nanos <= 0 ? 0 : Math.min(SLOTS_PER_DAY, (nanos + slotNanos - 1) / slotNanos);
+        return slotKey(time.toLocalDate().toEpochDay(), 0) + slot;
+    }
+
+    // Converts bookings to schedule entries, in key order, stopping after the limit
+    private List<Schedule> toSchedules(Map<Long, String> slots, int limit) {
+        List<Schedule> schedules = new ArrayList<>(Math.min(limit, slots.size()));
+        for (Map.Entry<Long, String> entry : slots.entrySet()) {
+            if (schedules.size() >= limit) {
+                break;
+            }
+            long key = entry.getKey();
+            schedules.add(new Schedule(doctorID, LocalDate.ofEpochDay(Math.floorDiv(key, SLOTS_PER_DAY)),
+                    slotTime(Math.floorMod(key, SLOTS_PER_DAY)), entry.getValue()));
+        }
+        return schedules;
+    }
+
+    // Returns the array index of an epoch day, or -1 if it is outside the stored range
+    private int indexOf(long epochDay) {
+        if (baseDay == Long.MIN_VALUE || epochDay < baseDay || epochDay - baseDay >= blockedMasks.length) {
+            return -1;
+        }
+        return (int) (epochDay - baseDay);
+    }
+
+    // Grows the mask arrays so that they cover the epoch day and returns its index
+    private int ensureDay(long epochDay) {
+        if (baseDay == Long.MIN_VALUE) {
+            baseDay = epochDay;
+        }
+        if (epochDay < baseDay) {
+            int shift = (int) (baseDay - epochDay);
+            blockedMasks = shiftRight(blockedMasks, shift);
+            bookedMasks = shiftRight(bookedMasks, shift);
+            baseDay = epochDay;
+        }
+        int index = (int) (epochDay - baseDay);
+        if (index >= blockedMasks.length) {
+            int capacity = Math.max(index + 1, blockedMasks.length + (blockedMasks.length >> 1) + 1);
+            blockedMasks = Arrays.copyOf(blockedMasks, capacity);
+            bookedMasks = Arrays.copyOf(bookedMasks, capacity);
+        }
+        return index;
+    }
+
+    // Copies an array into a larger one, leaving the given number of empty days at the front
+    private static char[] shiftRight(char[] masks, int shift) {
+        char[] shifted = new char[masks.length + shift];
+        System.arraycopy(masks, 0, shifted, shift, masks.length);
+        return shifted;
+    }
+}
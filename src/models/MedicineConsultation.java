@@ -1,9 +1,9 @@
 package models;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import stores.CsvReader;
+import stores.CsvRow;
 
 public class MedicineConsultation {
     private String medicine;
@@ -25,12 +25,11 @@ public class MedicineConsultation {
     }
 
     private static void loadConsultationsFromCSV(String filePath) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                MedicineConsultation consultation = MedicineConsultation.fromCSV(line);
+        try {
+            CsvReader.read(filePath, false, row -> {
+                MedicineConsultation consultation = MedicineConsultation.fromRow(row);
                 consultationsMap.put(consultation.getMedicine(), consultation);
-            }
+            });
             System.out.println("Medicine consultations loaded successfully.");
         } catch (IOException e) {
             System.err.println("Error reading the file: " + e.getMessage());
@@ -76,7 +75,10 @@ public class MedicineConsultation {
     }
 
     public static MedicineConsultation fromCSV(String line) {
-        String[] fields = line.split(",");
-        return new MedicineConsultation(fields[0], Double.parseDouble(fields[1]), fields[2], Double.parseDouble(fields[3]));
+        return fromRow(CsvReader.parse(line));
+    }
+
+    public static MedicineConsultation fromRow(CsvRow fields) {
+        return new MedicineConsultation(fields.getString(0), fields.getDouble(1), fields.getString(2), fields.getDouble(3));
     }
 }
@@ -2,14 +2,8 @@ package models;
 
 import enums.UserRole;
 
-import java.io.FileReader;
-import java.io.IOException;
 import java.time.LocalDate;
 import models.User;
-import models.Appointment;
-import java.util.List;
-import java.util.ArrayList;
-import java.io.BufferedReader;
 
 // Inherits User class
 public class Patient extends User {
@@ -78,25 +72,4 @@ public class Patient extends User {
     public void setRegistrationStatus() {
         this.isRegistered = true;
     }
-
-    public List<Appointment> getAppointments() {
-        List<Appointment> patientAppointments = new ArrayList<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/Appointment.csv"))) {
-            String line;
-            reader.readLine();  // Skip header line
-            while ((line = reader.readLine()) != null) {
-                Appointment appointment = Appointment.fromString(line);
-
-                // Check if the appointment belongs to this patient
-                if (appointment != null && appointment.getPatientId().equals(getHospitalID())) {
-                    patientAppointments.add(appointment);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading appointments: " + e.getMessage());
-        }
-
-        return patientAppointments;  // Return the list of appointments for the patient
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package services;
+
+import stores.InventoryDataStore;
+import stores.StaffDataStore;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The {@code ApplicationContext} class builds every service of the application once, in
+ * dependency order, and hands the same instances to every controller and view.
+ * <p>
+ * Services load their CSV files when they are constructed, so building them once at startup
+ * means moving between menus does not read any file again, and every part of the application
+ * sees the same in-memory state. The time taken to build each service is recorded and can be
+ * printed by starting the application with {@code -Dhms.startupTiming=true}.
+ */
+public class ApplicationContext {
+    public static final boolean PRINT_STARTUP_TIMING = Boolean.getBoolean("hms.startupTiming"); // Whether Main prints the startup report
+    private static ApplicationContext instance; // Process-wide shared instance
+
+    private final Map<String, Long> startupNanos = new LinkedHashMap<>(); // Service name -> time taken to build it, in build order
+    private final UserService userService;
+    private final ScheduleService scheduleService;
+    private final AppointmentService appointmentService;
+    private final MedicalRecordService medicalRecordService;
+    private final InventoryDataStore inventoryDataStore;
+    private final InventoryService inventoryService;
+    private final ReplenishmentService replenishmentService;
+    private final PatientService patientService;
+    private final PharmacistService pharmacistService;
+    private final DoctorService doctorService;
+    private final AppointmentRequestService appointmentRequestService;
+    private final BillingService billingService;
+    private final StaffDataStore staffDataStore;
+    private final ProjectAdminService projectAdminService;
+
+    /**
+     * Returns the shared {@code ApplicationContext}, building all services on first use.
+     *
+     * @return the shared application context
+     */
+    public static synchronized ApplicationContext getInstance() {
+        if (instance == null) {
+            instance = new ApplicationContext();
+        }
+        return instance;
+    }
+
+    private ApplicationContext() {
+        this.userService = build("UserService", UserService::new);
+        this.scheduleService = build("ScheduleService", ScheduleService::getInstance);
+        this.appointmentService = build("AppointmentService", () -> new AppointmentService(scheduleService));
+        this.medicalRecordService = build("MedicalRecordService", MedicalRecordService::new);
+        this.inventoryDataStore = build("InventoryDataStore", InventoryDataStore::new);
+        this.inventoryService = build("InventoryService", () -> new InventoryService(inventoryDataStore, appointmentService));
+        this.replenishmentService = build("ReplenishmentService", ReplenishmentService::new);
+        this.patientService = build("PatientService", () -> new PatientService(userService));
+        this.pharmacistService = build("PharmacistService",
+                () -> new PharmacistService(userService, appointmentService, inventoryService));
+        this.appointmentRequestService = build("AppointmentRequestService",
+                () -> new AppointmentRequestService(scheduleService, appointmentService));
+        this.doctorService = build("DoctorService",
+                () -> new DoctorService(userService, scheduleService, medicalRecordService, appointmentService, appointmentRequestService));
+        this.billingService = build("BillingService", BillingService::new);
+        this.staffDataStore = build("StaffDataStore", ApplicationContext::loadStaff);
+        this.projectAdminService = build("ProjectAdminService",
+                () -> new ProjectAdminService(staffDataStore, inventoryService, userService, replenishmentService, patientService));
+    }
+
+    // Loads the staff list, which unlike the services does not load itself
+    private static StaffDataStore loadStaff() {
+        StaffDataStore store = new StaffDataStore();
+        try {
+            store.loadStaffFromCSV(ProjectAdminService.STAFF_CSV_PATH);
+        } catch (IOException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+        }
+        return store;
+    }
+
+    // Builds one service and records how long it took
+    private <T> T build(String name, Supplier<T> factory) {
+        long start = System.nanoTime();
+        T service = factory.get();
+        startupNanos.put(name, System.nanoTime() - start);
+        return service;
+    }
+
+    /**
+     * Returns the time taken to build each service, in the order they were built.
+     *
+     * @return service name mapped to build time in nanoseconds
+     */
+    public Map<String, Long> getStartupTimes() {
+        return Collections.unmodifiableMap(startupNanos);
+    }
+
+    /**
+     * Prints the time taken to build each service, followed by the total.
+     */
+    public void printStartupTimes() {
+        long total = 0;
+        System.out.println("Service startup times:");
+        for (Map.Entry<String, Long> entry : startupNanos.entrySet()) {
+            total += entry.getValue();
+            System.out.printf("  %-26s %8.1f ms%n", entry.getKey(), entry.getValue() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        System.out.printf("  %-26s %8.1f ms%n", "Total", total / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    public UserService getUserService() {
+        return userService;
+    }
+
+    public ScheduleService getScheduleService() {
+        return scheduleService;
+    }
+
+    public AppointmentService getAppointmentService() {
+        return appointmentService;
+    }
+
+    public MedicalRecordService getMedicalRecordService() {
+        return medicalRecordService;
+    }
+
+    public InventoryDataStore getInventoryDataStore() {
+        return inventoryDataStore;
+    }
+
+    public InventoryService getInventoryService() {
+        return inventoryService;
+    }
+
+    public ReplenishmentService getReplenishmentService() {
+        return replenishmentService;
+    }
+
+    public PatientService getPatientService() {
+        return patientService;
+    }
+
+    public PharmacistService getPharmacistService() {
+        return pharmacistService;
+    }
+
+    public DoctorService getDoctorService() {
+        return doctorService;
+    }
+
+    public AppointmentRequestService getAppointmentRequestService() {
+        return appointmentRequestService;
+    }
+
+    public BillingService getBillingService() {
+        return billingService;
+    }
+
+    public StaffDataStore getStaffDataStore() {
+        return staffDataStore;
+    }
+
+    public ProjectAdminService getProjectAdminService() {
+        return projectAdminService;
+    }
+}
@@ -2,27 +2,31 @@ package services;
 
 import models.Appointment;
 import models.AppointmentRequest;
+import models.Schedule;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import interfaces.IAppointmentRequestService;
 import services.ScheduleService;
 import services.AppointmentService;
+import stores.AppointmentRequestStore;
 
 /**
  * Service class for handling appointment requests in the healthcare system.
  * This class provides methods to accept, decline, and process appointment requests,
  * as well as to save and retrieve appointment request data from a CSV file.
+ * <p>
+ * Requests are read from the shared {@link AppointmentRequestStore}, which loads the file once
+ * and keeps a per-doctor queue of pending requests; changes are appended to the file.
  */
 public class AppointmentRequestService implements IAppointmentRequestService {
     private final ScheduleService scheduleService; // Service for managing doctor schedules
     private final AppointmentService appointmentService; // Service for managing appointments
-    private final String appointmentRequestFile = "data/appointment_request.csv"; // Path to the CSV file
+    private final AppointmentRequestStore requestStore; // Resident store of all requests
 
     /**
      * Constructs an AppointmentRequestService with the specified services.
@@ -33,6 +37,7 @@ public class AppointmentRequestService implements IAppointmentRequestService {
     public AppointmentRequestService(ScheduleService scheduleService, AppointmentService appointmentService) {
         this.scheduleService = scheduleService;
         this.appointmentService = appointmentService;
+        this.requestStore = AppointmentRequestStore.getInstance();
     }
     
     
@@ -45,22 +50,18 @@ public class AppointmentRequestService implements IAppointmentRequestService {
 
 
     public void acceptRequest(AppointmentRequest request) {
-        // Change request status to accepted
-        request.setStatus("Accepted");
-
         // Update the status of the existing appointment record
         Appointment existingAppointment = appointmentService.getAppointmentById(request.getRequestId());
 
         if (existingAppointment != null) {
-            existingAppointment.setStatus(enums.AppointmentStatus.CONFIRMED);
-
-            // Update the schedule from "Available" to PatientID
+            // Atomically reserve the slot, changing it from "Available" to PatientID
             if (scheduleService.bookAppointment(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot(), request.getPatientId())) {
-                // If successfully booked, update the schedule with PatientID
-                scheduleService.setUnavailable(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot());
-
-                // Save the updated appointment record
+                // Confirm the appointment only once its slot is held, and save it
+                existingAppointment.setStatus(enums.AppointmentStatus.CONFIRMED);
                 appointmentService.updateAppointment(existingAppointment);
+
+                // Change request status to accepted
+                request.setStatus("Accepted");
                 saveAppointmentRequest(request); // Save the updated request to CSV
                 System.out.println("Appointment confirmed and scheduled successfully.");
             } else {
@@ -72,26 +73,33 @@ public class AppointmentRequestService implements IAppointmentRequestService {
     }
 
     /**
-     * Retrieves a list of all pending appointment requests from the CSV file.
+     * Retrieves a list of all pending appointment requests.
      *
      * @return A list of pending appointment requests.
      */
     public List<AppointmentRequest> getPendingRequests() {
-        List<AppointmentRequest> pendingRequests = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(appointmentRequestFile))) {
-            String line;
-            // Skip header line
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                AppointmentRequest request = AppointmentRequest.fromString(line);
-                if (request != null && request.getStatus().equals("Pending")) {
-                    pendingRequests.add(request);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading appointment requests: " + e.getMessage());
-        }
-        return pendingRequests;
+        return requestStore.getPendingRequests();
+    }
+
+    /**
+     * Retrieves the pending appointment requests of a doctor, ordered by requested date and time.
+     *
+     * @param doctorID The ID of the doctor.
+     * @return A list of the doctor's pending appointment requests.
+     */
+    public List<AppointmentRequest> getPendingRequests(String doctorID) {
+        return requestStore.getPendingRequests(doctorID);
+    }
+
+    /**
+     * Retrieves a pending appointment request by its ID.
+     *
+     * @param requestId The ID of the request.
+     * @return The request if it exists and is pending, null otherwise.
+     */
+    public AppointmentRequest getPendingRequest(String requestId) {
+        AppointmentRequest request = requestStore.getRequest(requestId);
+        return request != null && "Pending".equals(request.getStatus()) ? request : null;
     }
 
     /**
@@ -100,22 +108,17 @@ public class AppointmentRequestService implements IAppointmentRequestService {
      * @param doctorID The ID of the doctor whose requests are to be processed.
      */
     public void processPendingRequests(String doctorID) {
-        List<AppointmentRequest> pendingRequests = getPendingRequests();
+        List<AppointmentRequest> pendingRequests = getPendingRequests(doctorID);
 
         System.out.println("Pending Appointment Requests for Doctor ID: " + doctorID);
-        boolean found = false; // Flag to check if there are any requests for the given doctorID
 
         for (AppointmentRequest request : pendingRequests) {
-            // Check if the request's doctorID matches the provided doctorID
-            if (request.getDoctorId().equals(doctorID)) {
-                found = true; // Set the flag to true if a matching request is found
-                System.out.println("Request ID: " + request.getRequestId() +
-                        ", Requested Date: " + request.getRequestedDate() +
-                        ", Requested Time Slot: " + request.getRequestedTimeSlot());
-            }
+            System.out.println("Request ID: " + request.getRequestId() +
+                    ", Requested Date: " + request.getRequestedDate() +
+                    ", Requested Time Slot: " + request.getRequestedTimeSlot());
         }
 
-        if (!found) {
+        if (pendingRequests.isEmpty()) {
             System.out.println("No pending requests found for Doctor ID: " + doctorID);
         }
     }
@@ -127,23 +130,18 @@ public class AppointmentRequestService implements IAppointmentRequestService {
      * @param request The appointment request to be declined.
      */
     public void declineRequest(AppointmentRequest request) {
-        // Change request status to cancelled
-        request.setStatus("Cancelled");
-
         // Update the status of the existing appointment record
         Appointment existingAppointment = appointmentService.getAppointmentById(request.getRequestId());
 
         if (existingAppointment != null) {
-            existingAppointment.setStatus(enums.AppointmentStatus.CANCELLED); // Set appointment status to CANCELLED
-
-            // Update the schedule from "PatientID" back to "Available"
-            if (scheduleService.cancelAppointment(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot(), request.getPatientId())) {
-                // If successfully cancelled, update the schedule with availability
-                scheduleService.setAvailable(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot());
-
-                // Save the updated appointment record to appointment.csv
+            if (releaseSlot(request)) {
+                // Cancel the appointment only once its slot is released, and save it to appointment.csv
+                existingAppointment.setStatus(enums.AppointmentStatus.CANCELLED);
                 appointmentService.updateAppointment(existingAppointment);
 
+                // Change request status to cancelled
+                request.setStatus("Cancelled");
+
                 // Save the updated request to appointment_request.csv
                 saveAppointmentRequest(request);
 
@@ -156,84 +154,202 @@ public class AppointmentRequestService implements IAppointmentRequestService {
         }
     }
 
+    /**
+     * Frees the slot of a request that is being declined, changing it from the patient's ID
+     * back to "Available". Both the single and the batch decline use this.
+     *
+     * @param request The appointment request whose slot is freed.
+     * @return {@code true} if the schedule was updated, {@code false} otherwise.
+     */
+    private boolean releaseSlot(AppointmentRequest request) {
+        // Update the schedule from "PatientID" back to "Available"
+        if (scheduleService.cancelAppointment(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot(), request.getPatientId())) {
+            // If successfully cancelled, update the schedule with availability
+            scheduleService.setAvailable(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot());
+            return true;
+        }
+        return false;
+    }
 
     /**
-     * Saves an appointment request to the CSV file by appending it.
-     * Ensures that new requests are added under the header line.
+     * Accepts several appointment requests as one batch. All requests are validated first: each
+     * must be pending, have an appointment record and ask for a slot that is still available and
+     * not taken by an earlier request in the batch. The valid ones are then booked together, and
+     * the schedule journal, the appointment file and the request file are each written once.
      *
-     * @param request The appointment request to be saved.
+     * @param requestIds The IDs of the requests to accept.
+     * @return The outcome of each request, in the given order.
      */
-    public void saveAppointmentRequest(AppointmentRequest request) {
-        try {
-            // Read all existing requests
-            List<AppointmentRequest> requests = getAllRequests();
-
-            // Replace the existing request status
-            for (int i = 0; i < requests.size(); i++) {
-                if (requests.get(i).getRequestId().equals(request.getRequestId())) {
-                    requests.set(i, request);
-                    break;
-                }
+    public List<RequestResult> acceptRequests(List<String> requestIds) {
+        RequestResult[] results = new RequestResult[requestIds.size()];
+        List<Integer> valid = new ArrayList<>();
+        List<AppointmentRequest> requests = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        Set<String> claimedSlots = new HashSet<>();
+
+        // Validate every request before changing anything
+        for (int i = 0; i < requestIds.size(); i++) {
+            String requestId = requestIds.get(i);
+            AppointmentRequest request = getPendingRequest(requestId);
+            Appointment appointment = request == null ? null : appointmentService.getAppointmentById(requestId);
+            if (request == null) {
+                results[i] = new RequestResult(requestId, false, "No pending request found with this ID.");
+            } else if (appointment == null) {
+                results[i] = new RequestResult(requestId, false, "Appointment record not found.");
+            } else if (!"Available".equals(scheduleService.getSlotStatus(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot()))) {
+                results[i] = new RequestResult(requestId, false, "The requested slot is not available.");
+            } else if (!claimedSlots.add(request.getDoctorId() + "," + request.getRequestedDate() + "," + request.getRequestedTimeSlot())) {
+                results[i] = new RequestResult(requestId, false, "Another request in this batch takes the same slot.");
+            } else {
+                valid.add(i);
+                requests.add(request);
+                appointments.add(appointment);
             }
+        }
 
-            // Write back to CSV
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(appointmentRequestFile))) {
-                // Write header
-                writer.write("RequestID,DoctorID,PatientID,RequestedDate,RequestedTimeSlot,Status");
-                writer.newLine();
-                for (AppointmentRequest req : requests) {
-                    writer.write(req.toString());
-                    writer.newLine();
-                }
+        // Book all valid slots together
+        List<Schedule> bookings = new ArrayList<>();
+        for (AppointmentRequest request : requests) {
+            bookings.add(new Schedule(request.getDoctorId(), request.getRequestedDate(), request.getRequestedTimeSlot(), request.getPatientId()));
+        }
+        List<Boolean> booked = scheduleService.bookAppointments(bookings);
+
+        List<AppointmentRequest> changedRequests = new ArrayList<>();
+        List<Appointment> changedAppointments = new ArrayList<>();
+        for (int j = 0; j < valid.size(); j++) {
+            int i = valid.get(j);
+            if (booked.get(j)) {
+                requests.get(j).setStatus("Accepted");
+                appointments.get(j).setStatus(enums.AppointmentStatus.CONFIRMED);
+                changedRequests.add(requests.get(j));
+                changedAppointments.add(appointments.get(j));
+                results[i] = new RequestResult(requestIds.get(i), true, "Appointment confirmed and scheduled successfully.");
+            } else {
+                results[i] = new RequestResult(requestIds.get(i), false, "Failed to confirm the appointment due to unavailability.");
             }
-        } catch (IOException e) {
-            System.err.println("Error saving appointment request: " + e.getMessage());
         }
-    }
-
 
+        // Persist each file once
+        appointmentService.updateAppointments(changedAppointments);
+        requestStore.saveAll(changedRequests);
+        return Arrays.asList(results);
+    }
 
-    public void save(AppointmentRequest request) {
-        try {
-            // Open the file in append mode, which adds new data to the end of the file
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(appointmentRequestFile, true))) {
-                // Ensure there is a new line before writing the request if file isn't empty
-                writer.newLine();  // This ensures a new line before appending data
-                
-                // Write the request to the CSV file
-                writer.write(request.toString());
-                writer.flush(); // Ensure the data is written to disk
+    /**
+     * Declines several appointment requests as one batch. Each request is validated and its
+     * slot freed exactly as {@link #declineRequest} does; the appointment file and the request file are each written once.
+     *
+     * @param requestIds The IDs of the requests to decline.
+     * @return The outcome of each request, in the given order.
+     */
+    public List<RequestResult> declineRequests(List<String> requestIds) {
+        RequestResult[] results = new RequestResult[requestIds.size()];
+        List<AppointmentRequest> changedRequests = new ArrayList<>();
+        List<Appointment> changedAppointments = new ArrayList<>();
+
+        // Validate each request and free its slot
+        for (int i = 0; i < requestIds.size(); i++) {
+            String requestId = requestIds.get(i);
+            AppointmentRequest request = getPendingRequest(requestId);
+            Appointment appointment = request == null ? null : appointmentService.getAppointmentById(requestId);
+            if (request == null) {
+                results[i] = new RequestResult(requestId, false, "No pending request found with this ID.");
+            } else if (appointment == null) {
+                results[i] = new RequestResult(requestId, false, "Appointment record not found.");
+            } else if (changedRequests.contains(request)) {
+                results[i] = new RequestResult(requestId, false, "The request appears more than once in this batch.");
+            } else if (!releaseSlot(request)) {
+                results[i] = new RequestResult(requestId, false, "Failed to cancel the appointment due to an error in updating the schedule.");
+            } else {
+                // Cancel the appointment only once its slot is released
+                request.setStatus("Cancelled");
+                appointment.setStatus(enums.AppointmentStatus.CANCELLED);
+                changedRequests.add(request);
+                changedAppointments.add(appointment);
+                results[i] = new RequestResult(requestId, true, "Appointment request declined and appointment cancelled.");
             }
-        } catch (IOException e) {
-            System.err.println("Error saving appointment request: " + e.getMessage());
         }
-    }
-
-
 
+        // Persist each file once
+        appointmentService.updateAppointments(changedAppointments);
+        requestStore.saveAll(changedRequests);
+        return Arrays.asList(results);
+    }
 
+    /**
+     * Saves an updated appointment request by appending it to the CSV file.
+     * The latest row of a request replaces the earlier ones when the file is read.
+     *
+     * @param request The appointment request to be saved.
+     */
+    public void saveAppointmentRequest(AppointmentRequest request) {
+        requestStore.save(request);
+    }
 
+    /**
+     * Saves a new appointment request by appending it to the CSV file.
+     *
+     * @param request The appointment request to be saved.
+     */
+    public void save(AppointmentRequest request) {
+        requestStore.save(request);
+    }
 
     /**
-     * Loads all appointment requests from the CSV file.
+     * Retrieves all appointment requests.
      *
      * @return A list of all appointment requests.
      */
     public List<AppointmentRequest> getAllRequests() {
-        List<AppointmentRequest> requests = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(Paths.get(appointmentRequestFile))) {
-            String line;
-            // Skip header line
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                AppointmentRequest request = AppointmentRequest.fromString(line);
-                if (request != null) {
-                    requests.add(request);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading appointment requests: " + e.getMessage());
+        return requestStore.getAllRequests();
+    }
+
+    /**
+     * The outcome of one request in a batch accept or decline.
+     */
+    public static class RequestResult {
+        private final String requestId; // The ID of the request
+        private final boolean success; // Whether the request was accepted or declined
+        private final String message; // What happened to the request
+
+        /**
+         * Constructs a RequestResult.
+         *
+         * @param requestId The ID of the request.
+         * @param success Whether the request was processed.
+         * @param message What happened to the request.
+         */
+        public RequestResult(String requestId, boolean success, String message) {
+            this.requestId = requestId;
+            this.success = success;
+            this.message = message;
+        }
+
+        /**
+         * Returns the ID of the request.
+         *
+         * @return The request ID.
+         */
+        public String getRequestId() {
+            return requestId;
+        }
+
+        /**
+         * Returns whether the request was processed.
+         *
+         * @return true if the request was accepted or declined, false otherwise.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * Returns what happened to the request.
+         *
+         * @return The outcome message.
+         */
+        public String getMessage() {
+            return message;
         }
-        return requests;
     }
-}
\ No newline at end of file
+}
@@ -4,39 +4,111 @@ import models.Appointment;
 import enums.AppointmentStatus;
 import enums.MedicationStatus;
 import models.Medication;
-import models.Schedule;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import interfaces.IAppointmentService;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import services.ScheduleService;
+import stores.BinarySnapshot;
+import stores.CsvReader;
 
 /**
  * Service class for managing appointments in a hospital management system.
  * This class provides functionality to schedule, cancel, reschedule,
  * and view appointments, as well as to record outcomes and manage
  * medication statuses.
+ * <p>
+ * Appointments are held in a primary index by appointment ID, kept in file order, plus
+ * secondary indexes of appointment IDs by patient, doctor and status. Every change goes
+ * through {@link #index(Appointment)} and {@link #unindex(Appointment)}, so lookups never
+ * scan the full list. Status changes made on an appointment object must be passed to
+ * {@link #updateAppointment(Appointment)} to be reflected in the status index.
+ * <p>
+ * Changes are written behind: a mutation only marks the appointment dirty, and a background
+ * flusher writes all pending changes of an instance to the CSV file in one rewrite every few
+ * seconds. {@link #flush()} and {@link #flushAll()} write pending changes right away, and they
+ * are also written on shutdown and before any instance reads the file again. Each rewrite goes
+ * to a temporary file that then atomically replaces the CSV file, so neither a crash during a
+ * flush nor a reader running alongside it ever sees half a file.
+ * <p>
+ * Every write of the CSV file also writes a binary snapshot of the appointments, which is
+ * read instead of the CSV file as long as the CSV file has not changed since.
+ * <p>
+ * The primary index holds every appointment, so it is the one authoritative cache of
+ * appointments: lookups by ID, including those made for billing, never read the file.
  */
 public class AppointmentService implements IAppointmentService {
     private static final String APPOINTMENT_FILE = "data/appointment.csv";
-    private List<Appointment> appointments;
+    private static final String SNAPSHOT_FILE = "data/appointment.bin"; // Binary copy of the CSV file, read on startup
+    private static final int SNAPSHOT_VERSION = 3; // Format version of the binary snapshot; raise it when the layout or the order of the status enums changes
+    private static final String NO_MEDICATIONS = "No medications"; // Placeholder the CSV format uses for an empty prescription
+    private static final long FLUSH_INTERVAL_SECONDS = 5; // How often pending changes are written to the CSV file
+    private static final Set<AppointmentService> DIRTY_SERVICES = ConcurrentHashMap.newKeySet(); // Instances with unwritten changes
+    private static final ScheduledExecutorService FLUSHER = startFlusher(); // Background thread writing pending changes
+    private final Map<String, Appointment> appointments; // Primary index: appointment ID -> appointment, in file order
+    private final Map<String, Set<String>> appointmentIdsByPatient; // Patient ID -> IDs of their appointments
+    private final Map<String, Set<String>> appointmentIdsByDoctor; // Doctor ID -> IDs of their appointments
+    private final Map<AppointmentStatus, Set<String>> appointmentIdsByStatus; // Status -> IDs of appointments with it
+    private final Set<String> dirtyAppointmentIds = new HashSet<>(); // IDs of appointments changed since the last write
+    private final ScheduleService scheduleService; // Shared schedule used to free and book slots
 
     /**
-     * Constructor that initializes the AppointmentService and loads
-     * existing appointments from a CSV file.
+     * Constructor that initializes the AppointmentService with the shared
+     * ScheduleService and loads existing appointments from a CSV file.
      */
     public AppointmentService() {
-        this.appointments = new ArrayList<>();
+        this(ScheduleService.getInstance());
+    }
+
+    /**
+     * Constructor that initializes the AppointmentService with the given
+     * ScheduleService and loads existing appointments from a CSV file.
+     *
+     * @param scheduleService The schedule service used to free and book slots.
+     */
+    public AppointmentService(ScheduleService scheduleService) {
+        this.appointments = new LinkedHashMap<>();
+        this.appointmentIdsByPatient = new HashMap<>();
+        this.appointmentIdsByDoctor = new HashMap<>();
+        this.appointmentIdsByStatus = new EnumMap<>(AppointmentStatus.class);
+        this.scheduleService = scheduleService;
         createCSVIfNotExists();
         loadAppointmentsFromCSV();
     }
 
+    // Starts the daemon thread that periodically writes pending changes, and flushes them on shutdown
+    private static ScheduledExecutorService startFlusher() {
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(AppointmentService::flushAll, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(AppointmentService::flushAll, "appointment-flusher-shutdown"));
+        return flusher;
+    }
+
     /**
      * Schedules a new appointment.
      *
@@ -44,12 +116,13 @@ public class AppointmentService implements IAppointmentService {
      * @return true if the appointment was successfully scheduled, false otherwise.
      */
     @Override
-    public boolean scheduleAppointment(Appointment appointment) {
-        boolean success = appointments.add(appointment);
-        if (success) {
-            saveAppointmentsToCSV();
+    public synchronized boolean scheduleAppointment(Appointment appointment) {
+        if (appointments.containsKey(appointment.getAppointmentId())) {
+            return false; // Appointment IDs must be unique
         }
-        return success;
+        index(appointment);
+        markDirty(appointment.getAppointmentId());
+        return true;
     }
 
     /**
@@ -59,17 +132,17 @@ public class AppointmentService implements IAppointmentService {
      * @return true if the appointment was successfully canceled, false otherwise.
      */
     @Override
-    public boolean cancelAppointment(String appointmentId) {
-        ScheduleService scheduleService = new ScheduleService();
+    public synchronized boolean cancelAppointment(String appointmentId) {
         Appointment oldAppointment= getAppointmentById(appointmentId);
+        if (oldAppointment == null) {
+            return false;
+        }
         LocalDate newDate2 = oldAppointment.getAppointmentDateTime().toLocalDate(); // e.g., "2024-11-12"
         LocalTime timeSlot2 = oldAppointment.getAppointmentDateTime().toLocalTime();
         scheduleService.setAvailable1(oldAppointment.getDoctorId(), newDate2, timeSlot2);
-        boolean success = appointments.removeIf(appointment -> appointment.getAppointmentId().equals(appointmentId));
-        if (success) {
-            saveAppointmentsToCSV();
-        }
-        return success;
+        unindex(oldAppointment);
+        markDirty(appointmentId);
+        return true;
     }
 
     /**
@@ -80,30 +153,27 @@ public class AppointmentService implements IAppointmentService {
      * @return true if the appointment was successfully rescheduled, false otherwise.
      */
     @Override
-    public boolean rescheduleAppointment(String appointmentId, Appointment newAppointment) {
+    public synchronized boolean rescheduleAppointment(String appointmentId, Appointment newAppointment) {
         Appointment oldAppointment= getAppointmentById(appointmentId);
-        for (int i = 0; i < appointments.size(); i++) {
-            if (appointments.get(i).getAppointmentId().equals(appointmentId)) {
-                appointments.set(i, newAppointment);
-                saveAppointmentsToCSV();
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-
-                LocalDate newDate = newAppointment.getAppointmentDateTime().toLocalDate(); // e.g., "2024-11-12"
-                LocalTime timeSlot = newAppointment.getAppointmentDateTime().toLocalTime(); // e.g., "14:30"
+        if (oldAppointment == null) {
+            return false;
+        }
+        if (!appointmentId.equals(newAppointment.getAppointmentId())) {
+            unindex(oldAppointment); // A new ID moves the appointment to the end of the file
+        }
+        index(newAppointment);
+        markDirty(newAppointment.getAppointmentId());
 
-                ScheduleService scheduleService = new ScheduleService();
+        LocalDate newDate = newAppointment.getAppointmentDateTime().toLocalDate(); // e.g., "2024-11-12"
+        LocalTime timeSlot = newAppointment.getAppointmentDateTime().toLocalTime(); // e.g., "14:30"
 
-                LocalDate newDate2 = oldAppointment.getAppointmentDateTime().toLocalDate(); // e.g., "2024-11-12"
-                LocalTime timeSlot2 = oldAppointment.getAppointmentDateTime().toLocalTime();
+        LocalDate newDate2 = oldAppointment.getAppointmentDateTime().toLocalDate(); // e.g., "2024-11-12"
+        LocalTime timeSlot2 = oldAppointment.getAppointmentDateTime().toLocalTime();
 
 
-                scheduleService.setAvailable1(newAppointment.getDoctorId(), newDate2, timeSlot2);
-                scheduleService.setUnavailable2(newAppointment.getDoctorId(), newDate, timeSlot, newAppointment.getPatientId());
-                return true;
-            }
-        }
-        return false;
+        scheduleService.setAvailable1(newAppointment.getDoctorId(), newDate2, timeSlot2);
+        scheduleService.setUnavailable2(newAppointment.getDoctorId(), newDate, timeSlot, newAppointment.getPatientId());
+        return true;
     }
 
     /**
@@ -112,8 +182,8 @@ public class AppointmentService implements IAppointmentService {
      * @return A list of all scheduled appointments.
      */
     @Override
-    public List<Appointment> viewScheduledAppointments() {
-        return new ArrayList<>(appointments); // Return a copy to avoid modification from outside
+    public synchronized List<Appointment> viewScheduledAppointments() {
+        return new ArrayList<>(appointments.values()); // Return a copy to avoid modification from outside
     }
 
     /**
@@ -123,11 +193,8 @@ public class AppointmentService implements IAppointmentService {
      * @return The appointment if found, null otherwise.
      */
     @Override
-    public Appointment getAppointment(String appointmentId) {
-        return appointments.stream()
-                .filter(appointment -> appointment.getAppointmentId().equals(appointmentId))
-                .findFirst()
-                .orElse(null);
+    public synchronized Appointment getAppointment(String appointmentId) {
+        return appointments.get(appointmentId);
     }
 
     /**
@@ -141,6 +208,36 @@ public class AppointmentService implements IAppointmentService {
         return getAppointment(appointmentId); // Reuse existing method
     }
 
+    /**
+     * Retrieves all appointments of a patient, in the order they were added.
+     *
+     * @param patientId The ID of the patient.
+     * @return A list of the patient's appointments, empty if there are none.
+     */
+    public synchronized List<Appointment> getAppointmentsByPatient(String patientId) {
+        return lookup(appointmentIdsByPatient.get(patientId));
+    }
+
+    /**
+     * Retrieves all appointments with a doctor, in the order they were added.
+     *
+     * @param doctorId The ID of the doctor.
+     * @return A list of the doctor's appointments, empty if there are none.
+     */
+    public synchronized List<Appointment> getAppointmentsByDoctor(String doctorId) {
+        return lookup(appointmentIdsByDoctor.get(doctorId));
+    }
+
+    /**
+     * Retrieves all appointments with a status, in the order they were added.
+     *
+     * @param status The appointment status.
+     * @return A list of appointments with the status, empty if there are none.
+     */
+    public synchronized List<Appointment> getAppointmentsByStatus(AppointmentStatus status) {
+        return lookup(appointmentIdsByStatus.get(status));
+    }
+
     /**
      * Records the outcome of an appointment, including services provided
      * and prescribed medications.
@@ -151,7 +248,7 @@ public class AppointmentService implements IAppointmentService {
      * @param consultationNotes     Additional notes from the consultation.
      */
     @Override
-    public void recordAppointmentOutcome(String appointmentId, String serviceProvided, List<Medication> prescribedMedications, List<Integer> prescribedQuantities, String consultationNotes) {
+    public synchronized void recordAppointmentOutcome(String appointmentId, String serviceProvided, List<Medication> prescribedMedications, List<Integer> prescribedQuantities, String consultationNotes) {
         Appointment appointment = getAppointment(appointmentId);
 
         // Check if the appointment exists and is in a PENDING state
@@ -170,8 +267,8 @@ public class AppointmentService implements IAppointmentService {
                 appointment.addMedication(medication, quantity);
             }
 
-            // Save the updated appointments list to CSV
-            saveAppointmentsToCSV();
+            // Mark the appointment for the next write of the appointments CSV
+            markDirty(appointmentId);
         } else {
             System.out.println("Appointment not found or already completed.");
         }
@@ -182,7 +279,7 @@ public class AppointmentService implements IAppointmentService {
      *
      * @param appointmentId The ID of the appointment for which to update the medication status.
      */
-    public void updateMedicationStatus(String appointmentId) {
+    public synchronized void updateMedicationStatus(String appointmentId) {
         Appointment appointment = getAppointment(appointmentId);
         if (appointment != null) {
             if (appointment.getMedicationStatus() == MedicationStatus.DISPENSED) {
@@ -190,7 +287,7 @@ public class AppointmentService implements IAppointmentService {
                 return;
             }
             appointment.setMedicationStatus(MedicationStatus.DISPENSED);
-            saveAppointmentsToCSV();
+            markDirty(appointmentId);
         } else {
             System.out.println("Appointment not found.");
         }
@@ -223,26 +320,10 @@ public class AppointmentService implements IAppointmentService {
     */
     public List<LocalDateTime> getAvailableSlots(String doctorId, LocalDate date) {
         List<LocalDateTime> availableSlots = new ArrayList<>();
-        LocalTime startTime = LocalTime.of(9, 0);
-        LocalTime endTime = LocalTime.of(17, 0);
-        ScheduleService scheduleService = new ScheduleService();
-
-        // Fetch the schedule for the doctor on the given date
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleService.getScheduleMap().get(doctorId);
-        if (doctorSchedule != null) {
-            Map<LocalTime, Schedule> daySchedule = doctorSchedule.get(date);
-            if (daySchedule != null) {
-                // Iterate over all the time slots between start and end time
-                for (LocalTime time = startTime; time.isBefore(endTime); time = time.plusMinutes(30)) {
-                    LocalDateTime slot = LocalDateTime.of(date, time);
-                    Schedule schedule = daySchedule.get(time);
-
-                    // If the time slot is available (status is "Available")
-                    if (schedule != null && "Available".equals(schedule.getStatus())) {
-                        availableSlots.add(slot);  // Add to available slots
-                    }
-                }
-            }
+
+        // Fetch the available time slots for the doctor on the given date, already in time order
+        for (LocalTime time : scheduleService.getAvailableSlots(doctorId, date)) {
+            availableSlots.add(LocalDateTime.of(date, time));
         }
 
         return availableSlots;
@@ -265,42 +346,175 @@ public class AppointmentService implements IAppointmentService {
         }
     }
 
-    // Load appointments from CSV file
+    // Load appointments from CSV file, after writing out changes other instances still hold in memory
     public void loadAppointmentsFromCSV() {
+        flushAll();
+        synchronized (this) {
+            loadAppointments();
+        }
+    }
+
+    private void loadAppointments() {
         appointments.clear();
-        try (BufferedReader reader = new BufferedReader(new FileReader(APPOINTMENT_FILE))) {
-            String line;
-            // Skip header line
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                Appointment appointment = Appointment.fromString(line);
-                if (appointment != null) {
-                    appointments.add(appointment);
+        dirtyAppointmentIds.clear();
+        appointmentIdsByPatient.clear();
+        appointmentIdsByDoctor.clear();
+        appointmentIdsByStatus.clear();
+        if (loadSnapshot()) {
+            return;
+        }
+        try {
+            CsvReader.read(APPOINTMENT_FILE, true, row -> {
+                Appointment appointment = Appointment.fromRow(row);
+                if (appointment != null && !appointments.containsKey(appointment.getAppointmentId())) {
+                    index(appointment); // The first row of an ID wins, as with the former list scan
                 }
-            }
+            });
         } catch (IOException e) {
             System.err.println("Error reading appointments from CSV at path: " + APPOINTMENT_FILE + " - " + e.getMessage());
+            return;
         }
+        BinarySnapshot.write(SNAPSHOT_FILE, APPOINTMENT_FILE, SNAPSHOT_VERSION, this::writeSnapshot); // Read instead of the CSV file next time
     }
 
-    // Save appointments to CSV file
-    public void saveAppointmentsToCSV() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(APPOINTMENT_FILE))) {
+    // Save appointments to CSV file right away, replacing the old file atomically and clearing any pending changes
+    public synchronized void saveAppointmentsToCSV() {
+        Path appointmentFile = Paths.get(APPOINTMENT_FILE);
+        Path tempFile = appointmentFile.resolveSibling(appointmentFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
             // Write header to the CSV file
             writer.write("appointmentId,patientId,doctorId,appointmentDateTime,status,consultationNotes,serviceProvided,medications,quantity,medicationStatus");
             writer.newLine();
-            for (Appointment appointment : appointments) {
+            for (Appointment appointment : appointments.values()) {
                 writer.write(appointment.toString());
                 writer.newLine();
             }
         } catch (IOException e) {
             System.err.println("Error writing appointments to CSV at path: " + APPOINTMENT_FILE + " - " + e.getMessage());
+            return; // Changes stay pending, so the next flush tries again
+        }
+        try {
+            Files.move(tempFile, appointmentFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error replacing appointments CSV at path: " + APPOINTMENT_FILE + " - " + e.getMessage());
+            return;
+        }
+        dirtyAppointmentIds.clear();
+        DIRTY_SERVICES.remove(this);
+        BinarySnapshot.write(SNAPSHOT_FILE, APPOINTMENT_FILE, SNAPSHOT_VERSION, this::writeSnapshot);
+    }
+
+    // Writes every appointment to the binary snapshot, holding the same values as a CSV row
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeInt(appointments.size());
+        for (Appointment appointment : appointments.values()) {
+            out.writeUTF(appointment.getAppointmentId());
+            out.writeUTF(appointment.getPatientId());
+            out.writeUTF(appointment.getDoctorId());
+            out.writeLong(appointment.getAppointmentDateTime().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(appointment.getAppointmentDateTime().getNano());
+            out.writeByte(appointment.getStatus().ordinal());
+            out.writeUTF(String.valueOf(appointment.getConsultationNotes()));
+            out.writeUTF(String.valueOf(appointment.getServiceProvided()));
+            List<Medication> medications = appointment.getMedications();
+            List<Integer> quantities = appointment.getQuantities();
+            if (medications == null || medications.isEmpty() || quantities == null || quantities.isEmpty()) {
+                out.writeInt(1);
+                out.writeUTF(NO_MEDICATIONS); // As written to and read back from the CSV file
+                out.writeInt(0);
+            } else {
+                int count = Math.min(medications.size(), quantities.size());
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeUTF(medications.get(i).getName().trim());
+                    out.writeInt(quantities.get(i));
+                }
+            }
+            out.writeByte(appointment.getMedicationStatus().ordinal());
+        }
+    }
+
+    // Loads the appointments from the binary snapshot, if it is still in step with the CSV file
+    private boolean loadSnapshot() {
+        DataInputStream in = BinarySnapshot.open(SNAPSHOT_FILE, APPOINTMENT_FILE, SNAPSHOT_VERSION);
+        if (in == null) {
+            return false;
+        }
+        AppointmentStatus[] statuses = AppointmentStatus.values();
+        MedicationStatus[] medicationStatuses = MedicationStatus.values();
+        try {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String appointmentId = in.readUTF();
+                String patientId = in.readUTF();
+                String doctorId = in.readUTF();
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                Appointment appointment = new Appointment(appointmentId, patientId, doctorId, dateTime);
+                appointment.setStatus(statuses[in.readUnsignedByte()]);
+                appointment.setConsultationNotes(in.readUTF());
+                appointment.setServiceProvided(in.readUTF());
+                int medications = in.readInt();
+                for (int m = 0; m < medications; m++) {
+                    String name = in.readUTF();
+                    int quantity = in.readInt();
+                    if (quantity >= 0) {
+                        appointment.addMedication(new Medication(name, quantity, MedicationStatus.PENDING), quantity);
+                    }
+                }
+                appointment.setMedicationStatus(medicationStatuses[in.readUnsignedByte()]);
+                if (!appointments.containsKey(appointmentId)) {
+                    index(appointment);
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading appointment snapshot, reading the CSV file instead: " + e.getMessage());
+            appointments.clear();
+            appointmentIdsByPatient.clear();
+            appointmentIdsByDoctor.clear();
+            appointmentIdsByStatus.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Writes pending changes to the appointments CSV, if there are any. Changes made since the
+     * last write are coalesced into this single write.
+     */
+    public synchronized void flush() {
+        if (!dirtyAppointmentIds.isEmpty()) {
+            saveAppointmentsToCSV();
+        }
+    }
+
+    /**
+     * Writes the pending changes of every {@code AppointmentService} instance, for example on
+     * logout or before the appointments CSV is read again.
+     */
+    public static void flushAll() {
+        for (AppointmentService service : DIRTY_SERVICES) {
+            service.flush();
         }
     }
 
-    public Appointment findAppointment(String patientId, String doctorId, LocalDate date, LocalTime timeSlot) {
-        for (Appointment appointment : appointments) {
-            if (appointment.getPatientId().equals(patientId) &&
+    /**
+     * Returns the number of appointments changed since the last write of the CSV file.
+     *
+     * @return the number of dirty appointments
+     */
+    public synchronized int getPendingChanges() {
+        return dirtyAppointmentIds.size();
+    }
+
+    // Marks an appointment as changed; the background flusher writes it out with the next batch
+    private void markDirty(String appointmentId) {
+        dirtyAppointmentIds.add(appointmentId);
+        DIRTY_SERVICES.add(this);
+    }
+
+    public synchronized Appointment findAppointment(String patientId, String doctorId, LocalDate date, LocalTime timeSlot) {
+        for (Appointment appointment : getAppointmentsByPatient(patientId)) {
+            if (
                     appointment.getDoctorId().equals(doctorId) &&
                     appointment.getAppointmentDateTime().toLocalDate().equals(date) &&
                     appointment.getAppointmentDateTime().toLocalTime().equals(timeSlot)) {
@@ -311,17 +525,96 @@ public class AppointmentService implements IAppointmentService {
         return null; // Return null if no matching appointment is found
     }
 
-    public void updateAppointment(Appointment updatedAppointment) {
-        for (int i = 0; i < appointments.size(); i++) {
-            Appointment appointment = appointments.get(i);
-            if (appointment.getAppointmentId().equals(updatedAppointment.getAppointmentId())) {
-                appointments.set(i, updatedAppointment);
-                //System.out.println("Appointment updated successfully.");
-                saveAppointmentsToCSV();
-                return;
+    public synchronized void updateAppointment(Appointment updatedAppointment) {
+        if (!appointments.containsKey(updatedAppointment.getAppointmentId())) {
+            System.out.println("Appointment not found.");
+            return;
+        }
+        index(updatedAppointment); // Re-indexes the status, which may have changed
+        //System.out.println("Appointment updated successfully.");
+        markDirty(updatedAppointment.getAppointmentId());
+    }
+
+    /**
+     * Updates several appointments and writes them to the CSV file with a single write.
+     *
+     * @param updatedAppointments The appointments to update.
+     */
+    public synchronized void updateAppointments(List<Appointment> updatedAppointments) {
+        for (Appointment updatedAppointment : updatedAppointments) {
+            if (appointments.containsKey(updatedAppointment.getAppointmentId())) {
+                index(updatedAppointment); // Re-indexes the status, which may have changed
+                markDirty(updatedAppointment.getAppointmentId());
+            } else {
+                System.out.println("Appointment not found: " + updatedAppointment.getAppointmentId());
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Adds an appointment to all indexes, replacing any appointment with the same ID
+     * in place so that the file order is kept.
+     *
+     * @param appointment The appointment to index.
+     */
+    private void index(Appointment appointment) {
+        String appointmentId = appointment.getAppointmentId();
+        Appointment previous = appointments.put(appointmentId, appointment);
+        if (previous != null) {
+            // Only drop entries whose key changed, so unchanged entries keep their position
+            if (!previous.getPatientId().equals(appointment.getPatientId())) {
+                removeId(appointmentIdsByPatient, previous.getPatientId(), appointmentId);
+            }
+            if (!previous.getDoctorId().equals(appointment.getDoctorId())) {
+                removeId(appointmentIdsByDoctor, previous.getDoctorId(), appointmentId);
+            }
+            for (Map.Entry<AppointmentStatus, Set<String>> entry : appointmentIdsByStatus.entrySet()) {
+                if (entry.getKey() != appointment.getStatus()) {
+                    entry.getValue().remove(appointmentId); // The status may have changed since it was indexed
+                }
             }
         }
-        System.out.println("Appointment not found.");
+        appointmentIdsByPatient.computeIfAbsent(appointment.getPatientId(), k -> new LinkedHashSet<>()).add(appointmentId);
+        appointmentIdsByDoctor.computeIfAbsent(appointment.getDoctorId(), k -> new LinkedHashSet<>()).add(appointmentId);
+        appointmentIdsByStatus.computeIfAbsent(appointment.getStatus(), k -> new LinkedHashSet<>()).add(appointmentId);
+    }
+
+    /**
+     * Removes an appointment from all indexes.
+     *
+     * @param appointment The appointment to remove.
+     */
+    private void unindex(Appointment appointment) {
+        String appointmentId = appointment.getAppointmentId();
+        appointments.remove(appointmentId);
+        removeId(appointmentIdsByPatient, appointment.getPatientId(), appointmentId);
+        removeId(appointmentIdsByDoctor, appointment.getDoctorId(), appointmentId);
+        for (Set<String> ids : appointmentIdsByStatus.values()) {
+            ids.remove(appointmentId); // The status may have changed since the appointment was indexed
+        }
+    }
+
+    private static <K> void removeId(Map<K, Set<String>> index, K key, String appointmentId) {
+        Set<String> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(appointmentId);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    // Resolves a set of appointment IDs to appointments, in the order they were indexed
+    private List<Appointment> lookup(Set<String> appointmentIds) {
+        if (appointmentIds == null || appointmentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Appointment> result = new ArrayList<>(appointmentIds.size());
+        for (String appointmentId : appointmentIds) {
+            result.add(appointments.get(appointmentId));
+        }
+        return result;
     }
 
 }
@@ -1,8 +1,6 @@
 package services;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
@@ -35,6 +33,7 @@ import services.DoctorService;
 import services.AppointmentService;
 import services.UserService;
 import models.Inventory;
+import stores.CsvReader;
 import stores.InventoryDataStore;
 
 
@@ -62,15 +61,17 @@ public class DoctorService implements IDoctorService {
      * @param scheduleService the schedule service for managing doctor availability
      * @param medicalRecordService the medical record service for managing patient records
      * @param appointmentService the appointment service for managing appointments
+     * @param appointmentRequestService the appointment request service for accepting and declining requests
      */
     public DoctorService(UserService userService, ScheduleService scheduleService, 
-                         MedicalRecordService medicalRecordService, AppointmentService appointmentService) {
+                         MedicalRecordService medicalRecordService, AppointmentService appointmentService,
+                         AppointmentRequestService appointmentRequestService) {
         this.userService = userService;
         this.doctors = new HashMap<>();
         this.appointmentService = appointmentService;
         this.medicalRecordService = medicalRecordService;
         this.scheduleService = scheduleService;
-        this.appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
+        this.appointmentRequestService = appointmentRequestService;
         loadDoctorFromCSV();
     }
     //add doctor function added.
@@ -123,25 +124,31 @@ public class DoctorService implements IDoctorService {
         });
     }
 
+    /**
+     * Reads doctor.csv again, picking up doctors added, changed or removed since this
+     * service was built.
+     */
+    public void reloadDoctors() {
+        doctors.clear();
+        loadDoctorFromCSV();
+    }
+
     /**
      * Loads doctors from a CSV file into the service's internal collection.
      */
     public void loadDoctorFromCSV() {
-        String line;
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_FILE_PATH))) {
+        try {
             // Skip the header line
-            br.readLine();
-            while ((line = br.readLine()) != null) {
-                String[] doctorData = line.split(DELIMITER);
-                if (doctorData.length == 3) {
-                    String doctorId = doctorData[0].trim();
-                    String name = doctorData[1].trim();
-                    String contactInformation = doctorData[2].trim();
+            CsvReader.read(CSV_FILE_PATH, true, doctorData -> {
+                if (doctorData.size() == 3) {
+                    String doctorId = doctorData.getTrimmed(0);
+                    String name = doctorData.getTrimmed(1);
+                    String contactInformation = doctorData.getTrimmed(2);
                     User existingUser = userService.getUserById(doctorId);
                     String password = (existingUser != null) ? existingUser.getPassword() : "defaultPassword";
                     doctors.put(doctorId, new Doctor(existingUser != null ? existingUser : new User(doctorId, password, UserRole.DOCTOR), name, contactInformation));
                 }
-            }
+            });
         } catch (IOException e) {
             System.out.println("Error reading Doctors CSV file: " + e.getMessage());
         }
@@ -173,32 +180,53 @@ public class DoctorService implements IDoctorService {
      * @param requestId the ID of the appointment request to accept
      */
     public void acceptanceOfRequest(String requestId) {
-        List<AppointmentRequest> pendingRequests = appointmentRequestService.getPendingRequests();
-        for (AppointmentRequest request : pendingRequests) {
-            if (request.getRequestId().equals(requestId)) {
-                appointmentRequestService.acceptRequest(request);
-                return; // Exit the function after processing
-            }
+        AppointmentRequest request = appointmentRequestService.getPendingRequest(requestId);
+        if (request != null) {
+            appointmentRequestService.acceptRequest(request);
+            return; // Exit the function after processing
         }
         System.out.println("No pending request found with the provided ID.");
     }
 
+    /**
+     * Accepts several appointment requests as one batch and prints the outcome of each.
+     *
+     * @param requestIds the IDs of the appointment requests to accept
+     */
+    public void acceptanceOfRequests(List<String> requestIds) {
+        printResults(appointmentRequestService.acceptRequests(requestIds));
+    }
+
     /**
      * Declines an appointment request based on the provided request ID.
      *
      * @param requestId the ID of the appointment request to decline
      */
     public void declineRequest(String requestId) {
-        List<AppointmentRequest> pendingRequests = appointmentRequestService.getPendingRequests();
-        for (AppointmentRequest request : pendingRequests) {
-            if (request.getRequestId().equals(requestId)) {
-                appointmentRequestService.declineRequest(request);
-                return; // Exit the function after processing
-            }
+        AppointmentRequest request = appointmentRequestService.getPendingRequest(requestId);
+        if (request != null) {
+            appointmentRequestService.declineRequest(request);
+            return; // Exit the function after processing
         }
         System.out.println("No pending request found with the provided ID.");
     }
 
+    /**
+     * Declines several appointment requests as one batch and prints the outcome of each.
+     *
+     * @param requestIds the IDs of the appointment requests to decline
+     */
+    public void declineRequests(List<String> requestIds) {
+        printResults(appointmentRequestService.declineRequests(requestIds));
+    }
+
+    // Prints the outcome of each request of a batch
+    private void printResults(List<AppointmentRequestService.RequestResult> results) {
+        for (AppointmentRequestService.RequestResult result : results) {
+            System.out.println("Request ID " + result.getRequestId() + ": " + result.getMessage());
+        }
+    }
+
     /**
      * Sets the availability for a doctor on a specific date and time slot.
      *
@@ -300,7 +328,7 @@ public class DoctorService implements IDoctorService {
             }
 
             // Retrieve the list of inventory items
-            InventoryDataStore inventoryDataStore=new InventoryDataStore();
+            InventoryDataStore inventoryDataStore = ApplicationContext.getInstance().getInventoryDataStore(); // Shared inventory, already loaded
             List<Inventory> inventoryList = inventoryDataStore.getInventoryList();
             List<String> availableMedicineNames = inventoryList.stream()
                     .map(Inventory::getMedicineName)
@@ -334,7 +362,7 @@ public class DoctorService implements IDoctorService {
                 appointment.setMedications(prescribedMedications);
                 appointment.setQuantities(prescribedQuantities);
                 appointment.setStatus(AppointmentStatus.COMPLETED);
-                appointmentService.saveAppointmentsToCSV();
+                appointmentService.updateAppointment(appointment); // Saves and re-indexes the new status
 
                 System.out.println("Appointment outcome recorded successfully.");
 
@@ -7,12 +7,11 @@ import models.InventoryDisplay;
 import enums.ReplenishmentStatus;
 import enums.InventoryStatus;
 import enums.MedicationStatus;
+import stores.CsvReader;
 import stores.InventoryDataStore;
 import services.AppointmentService;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
@@ -34,17 +33,28 @@ public class InventoryService implements IInventoryService {
    
 
     /**
-     * Constructs an InventoryService instance with the specified InventoryDataStore.
+     * Constructs an InventoryService instance with the specified InventoryDataStore
+     * and the AppointmentService shared through ApplicationContext.
      * Initializes the inventory data by loading it from a CSV file.
      *
      * @param store the InventoryDataStore to be used by this service
      */
     public InventoryService(InventoryDataStore store) {
+        this(store, ApplicationContext.getInstance().getAppointmentService());
+    }
+
+    /**
+     * Constructs an InventoryService instance with the specified InventoryDataStore
+     * and a shared AppointmentService.
+     * Initializes the inventory data by loading it from a CSV file.
+     *
+     * @param store the InventoryDataStore to be used by this service
+     * @param appointmentService the AppointmentService whose prescriptions are dispensed
+     */
+    public InventoryService(InventoryDataStore store, AppointmentService appointmentService) {
         this.inventoryDataStore = store;
-        this.appointmentService = new AppointmentService();
+        this.appointmentService = appointmentService;
         loadDataFromCSV(); // Load inventory data from CSV on initialization
-        
-        
     }
 
     /**
@@ -79,24 +89,20 @@ public class InventoryService implements IInventoryService {
      * The CSV file is expected to contain headers followed by rows of inventory data.
      */
     public void loadDataFromCSV() {
-        String line;
         List<Inventory> inventoryList = new ArrayList<>();
 
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_FILE_PATH))) {
-            br.readLine(); // Skip the header line
-            while ((line = br.readLine()) != null) {
-                String[] inventoryData = line.split(DELIMITER);
-
-                if (inventoryData.length == 4) {
-                    String medicineName = inventoryData[0].trim();
-                    int currentStock = Integer.parseInt(inventoryData[1].trim());
-                    int lowLevelAlert = Integer.parseInt(inventoryData[2].trim());
-                    ReplenishmentStatus replenishmentStatus = ReplenishmentStatus.valueOf(inventoryData[3].trim());
+        try {
+            CsvReader.read(CSV_FILE_PATH, true, inventoryData -> { // Skip the header line
+                if (inventoryData.size() == 4) {
+                    String medicineName = inventoryData.getTrimmed(0);
+                    int currentStock = inventoryData.getInt(1);
+                    int lowLevelAlert = inventoryData.getInt(2);
+                    ReplenishmentStatus replenishmentStatus = ReplenishmentStatus.valueOf(inventoryData.getTrimmed(3));
 
                     Inventory inventoryItem = new Inventory(medicineName, currentStock, lowLevelAlert, replenishmentStatus);
                     inventoryList.add(inventoryItem);
                 }
-            }
+            });
             inventoryDataStore.setInventoryList(inventoryList);
          
         } catch (IOException | IllegalArgumentException e) {
@@ -0,0 +1,244 @@
+package services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code LoginThrottle} class limits failed logins, so that a scripted password guesser
+ * cannot keep the password cipher busy at the expense of real users.
+ * <p>
+ * Failed logins to known accounts are counted in a sliding window per hospital ID and across
+ * all accounts. An account that reaches {@code hms.login.maxFailures} failures within
+ * {@code hms.login.windowSeconds} is locked for {@code hms.login.lockoutSeconds}, and while
+ * the failures across all accounts within the window reach {@code hms.login.globalMaxFailures},
+ * every login is refused. Failures on unknown hospital IDs are not counted, so one client
+ * typing made-up IDs cannot lock everyone out; reaching the global limit takes failures on
+ * many real accounts, each of which locks after its own few. Refused logins are turned away
+ * before any password is encrypted. A successful login clears the failures of its account.
+ * Setting {@code hms.login.maxFailures} to 0 turns throttling off.
+ * <p>
+ * The running totals of attempts, successes, failures and refusals are {@link LongAdder}s, so
+ * sessions logging in at the same time do not contend on one counter. Each sliding window is
+ * split into buckets with a plain count, each guarded by its own lock; only failures take that
+ * lock, and they are rare enough that it is seldom contended. Buckets are reused as time moves
+ * on, so counting is approximate to one bucket.
+ */
+public class LoginThrottle {
+    private static final int BUCKETS = 10; // Buckets per sliding window
+
+    private final int maxFailures; // Failures of one account that lock it, or 0 for no throttling
+    private final int globalMaxFailures; // Failures across all accounts that refuse every login
+    private final long windowNanos;
+    private final long lockoutNanos;
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>(); // Hospital ID -> recent failures, for accounts that have any
+    private final SlidingWindowCounter globalFailures;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+    private final LongAdder refusedLocked = new LongAdder();
+    private final LongAdder refusedGlobal = new LongAdder();
+
+    /**
+     * Constructs a LoginThrottle configured by the {@code hms.login.*} system properties.
+     */
+    public LoginThrottle() {
+        this(Integer.getInteger("hms.login.maxFailures", 5),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("hms.login.windowSeconds", 300)),
+                TimeUnit.SECONDS.toNanos(Integer.getInteger("hms.login.lockoutSeconds", 900)),
+                Integer.getInteger("hms.login.globalMaxFailures", 200));
+    }
+
+    /**
+     * Constructs a LoginThrottle with the given limits.
+     *
+     * @param maxFailures       failures within the window that lock an account, or 0 for no throttling
+     * @param windowNanos       length of the sliding window, in nanoseconds
+     * @param lockoutNanos      how long a locked account stays locked, in nanoseconds
+     * @param globalMaxFailures failures across all accounts within the window that refuse every login
+     */
+    public LoginThrottle(int maxFailures, long windowNanos, long lockoutNanos, int globalMaxFailures) {
+        this.maxFailures = maxFailures;
+        this.globalMaxFailures = globalMaxFailures;
+        this.windowNanos = windowNanos;
+        this.lockoutNanos = lockoutNanos;
+        this.globalFailures = new SlidingWindowCounter(windowNanos);
+    }
+
+    /**
+     * Decides whether a login may go ahead. Called before the password is checked.
+     *
+     * @param hospitalID the hospital ID being logged in to
+     * @return true if the password may be checked, false if the login is refused
+     */
+    public boolean allowAttempt(String hospitalID) {
+        attempts.increment();
+        if (maxFailures <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Account account = accounts.get(hospitalID);
+        if (account != null && account.isLocked(now)) {
+            refusedLocked.increment();
+            return false;
+        }
+        if (globalFailures.sum(now) >= globalMaxFailures) {
+            refusedGlobal.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records a successful login, clearing the failures of the account.
+     *
+     * @param hospitalID the hospital ID that logged in
+     */
+    public void recordSuccess(String hospitalID) {
+        successes.increment();
+        accounts.remove(hospitalID);
+    }
+
+    /**
+     * Records a failed login, locking the account if it has failed too often.
+     *
+     * @param hospitalID  the hospital ID that failed to log in
+     * @param knownUser   whether the hospital ID belongs to a user; only failures of known
+     *                    accounts are tracked and counted toward the global limit, so guessing
+     *                    IDs can neither grow the table nor refuse every login
+     */
+    public void recordFailure(String hospitalID, boolean knownUser) {
+        failures.increment();
+        if (maxFailures <= 0) {
+            return;
+        }
+        if (!knownUser) {
+            return;
+        }
+        long now = System.nanoTime();
+        globalFailures.increment(now);
+        Account account = accounts.computeIfAbsent(hospitalID, id -> new Account(windowNanos));
+        account.failures.increment(now);
+        if (!account.isLocked(now) && account.failures.sum(now) >= maxFailures) {
+            account.lock(now + lockoutNanos);
+            lockouts.increment();
+        }
+    }
+
+    /**
+     * Returns whether the account is locked out.
+     *
+     * @param hospitalID the hospital ID to check
+     * @return true if logins to the account are currently refused
+     */
+    public boolean isLocked(String hospitalID) {
+        Account account = accounts.get(hospitalID);
+        return account != null && account.isLocked(System.nanoTime());
+    }
+
+    /**
+     * Returns the login counters, for monitoring.
+     *
+     * @return counter name mapped to its value, in a fixed order
+     */
+    public Map<String, Long> getMetrics() {
+        long now = System.nanoTime();
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("attempts", attempts.sum());
+        metrics.put("successes", successes.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("lockouts", lockouts.sum());
+        metrics.put("refusedLocked", refusedLocked.sum());
+        metrics.put("refusedGlobal", refusedGlobal.sum());
+        metrics.put("lockedAccounts", accounts.values().stream().filter(account -> account.isLocked(now)).count());
+        metrics.put("recentFailures", globalFailures.sum(now));
+        return metrics;
+    }
+
+    /**
+     * Prints the login counters.
+     */
+    public void printMetrics() {
+        System.out.println("Login metrics:");
+        for (Map.Entry<String, Long> entry : getMetrics().entrySet()) {
+            System.out.printf("  %-16s %10d%n", entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Recent failures and lockout state of one account.
+     */
+    private static final class Account {
+        private final SlidingWindowCounter failures;
+        private volatile long lockedUntil; // System.nanoTime() at which the lockout ends
+        private volatile boolean locked; // Whether the account has ever been locked; lockedUntil is meaningless until then
+
+        private Account(long windowNanos) {
+            this.failures = new SlidingWindowCounter(windowNanos);
+        }
+
+        private boolean isLocked(long now) {
+            return locked && now - lockedUntil < 0;
+        }
+
+        private void lock(long until) {
+            lockedUntil = until;
+            locked = true;
+        }
+    }
+
+    /**
+     * Counts events in a sliding window made of buckets. Each bucket remembers which slice of
+     * time it counts, and is reset when it is reused for a later slice. A bucket's slice and
+     * count are only read and changed together under the bucket's lock, so an increment racing
+     * the reset is never lost, and a thread whose time was read before the reset cannot move
+     * the bucket back to an older slice. Failed logins are rare, so the lock is uncontended.
+     */
+    private static final class SlidingWindowCounter {
+        private final long bucketNanos;
+        private final Bucket[] buckets = new Bucket[BUCKETS];
+
+        private SlidingWindowCounter(long windowNanos) {
+            this.bucketNanos = Math.max(1, windowNanos / BUCKETS);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new Bucket();
+            }
+        }
+
+        private void increment(long now) {
+            long slice = now / bucketNanos;
+            Bucket bucket = buckets[Math.floorMod(slice, BUCKETS)];
+            synchronized (bucket) {
+                if (slice > bucket.slice) {
+                    bucket.slice = slice;
+                    bucket.count = 0;
+                } else if (slice < bucket.slice) {
+                    return; // A whole window older than the bucket, so already out of the window
+                }
+                bucket.count++;
+            }
+        }
+
+        private long sum(long now) {
+            long slice = now / bucketNanos;
+            long total = 0;
+            for (Bucket bucket : buckets) {
+                synchronized (bucket) {
+                    if (bucket.slice > slice - BUCKETS) {
+                        total += bucket.count;
+                    }
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class Bucket {
+        private long count; // Events counted in the slice; guarded by the bucket
+        private long slice = Long.MIN_VALUE; // Slice of time counted, or none yet; guarded by the bucket
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 
 import interfaces.IMedicalRecordService;
+import stores.CsvReader;
 
 /**
  * The {@code MedicalRecordService} class provides services to manage medical records for patients.
@@ -36,27 +37,25 @@ public class MedicalRecordService implements IMedicalRecordService {
      * Each record is parsed and stored in the {@code medicalRecords} map.
      */
     public void loadRecordsFromCSV() {
-        try (BufferedReader br = new BufferedReader(new FileReader(medicalRecordFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] fields = line.split(",");
-                if (fields.length == 11) { // Ensure we have enough fields
+        try {
+            CsvReader.read(medicalRecordFile, false, fields -> {
+                if (fields.size() == 11) { // Ensure we have enough fields
                     MedicalRecord record = new MedicalRecord(
-                            fields[0], // patientID
-                            fields[1], // name
-                            fields[2], // dob
-                            fields[3], // gender
-                            fields[4], // phoneNumber
-                            fields[5], // emailAddress
-                            fields[6], // bloodType
-                            fields[7], // pastDiagnoses
-                            fields[8], // pastPrescriptions
-                            fields[9], // newDiagnosis
-                            fields[10] // newPrescription
+                            fields.getString(0), // patientID
+                            fields.getString(1), // name
+                            fields.getString(2), // dob
+                            fields.getString(3), // gender
+                            fields.getString(4), // phoneNumber
+                            fields.getString(5), // emailAddress
+                            fields.getString(6), // bloodType
+                            fields.getString(7), // pastDiagnoses
+                            fields.getString(8), // pastPrescriptions
+                            fields.getString(9), // newDiagnosis
+                            fields.getString(10) // newPrescription
                     );
                     medicalRecords.put(record.getPatientID(), record);
                 }
-            }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -1,12 +1,9 @@
 package services;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Scanner;
@@ -18,6 +15,7 @@ import models.MedicalRecord;
 import services.MedicalRecordService;
 import services.UserService;
 import services.AppointmentService;
+import stores.CsvReader;
 
 public class PatientService {
     private final Map<String, Patient> patients;
@@ -26,7 +24,6 @@ public class PatientService {
     public PatientService(UserService userService) {
         this.userService = userService;
         this.patients = new HashMap<>();
-        new AppointmentService();// Initialize AppointmentService
         loadPatientsFromCSV(); // Load patients from the CSV file
     }
 
@@ -66,7 +63,7 @@ public class PatientService {
     public boolean updatePatientContact(String hospitalID, String newContactInformation, String contactType) {
         Patient patient = patients.get(hospitalID);
         if (patient != null) {
-            MedicalRecordService medicalRecordService = new MedicalRecordService();
+            MedicalRecordService medicalRecordService = ApplicationContext.getInstance().getMedicalRecordService(); // Shared records, so other sessions see the change
             MedicalRecord medicalRecord = medicalRecordService.getMedicalRecord(hospitalID);
 
             if (medicalRecord != null) {
@@ -116,24 +113,18 @@ public class PatientService {
 
     private void loadPatientsFromCSV() {
         String filePath = "data/Patient.csv";
-        String line;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
+        try {
             // Skip the header line
-            br.readLine();
-            while ((line = br.readLine()) != null) {
-                String[] patientData = line.split(",");
-
-                if (patientData.length == 6) {
-                    String patientId = patientData[0].trim();
-                    String name = patientData[1].trim();
-                    String dobString = patientData[2].trim();
-                    String gender = patientData[3].trim();
-                    String bloodType = patientData[4].trim();
-                    String contactInformation = patientData[5].trim();
+            CsvReader.read(filePath, true, patientData -> {
+                if (patientData.size() == 6) {
+                    String patientId = patientData.getTrimmed(0);
+                    String name = patientData.getTrimmed(1);
+                    String gender = patientData.getTrimmed(3);
+                    String bloodType = patientData.getTrimmed(4);
+                    String contactInformation = patientData.getTrimmed(5);
 
-                    LocalDate dob = LocalDate.parse(dobString, formatter);
+                    LocalDate dob = patientData.getDate(2);
 
                     // Try to find an existing user if applicable
                     User existingUser = userService.getUserById(patientId);
@@ -145,7 +136,7 @@ public class PatientService {
                     // Otherwise, creates a new User object
                     patients.put(patientId, new Patient(existingUser != null ? existingUser : new User(patientId, password, UserRole.PATIENT), name, dob, gender, bloodType, contactInformation));
                 }
-            }
+            });
         } catch (IOException e) {
             System.out.println("Error reading CSV file: " + e.getMessage());
         }
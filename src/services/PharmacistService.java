@@ -1,8 +1,6 @@
 package services;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -22,6 +20,7 @@ import enums.MedicationStatus;
 import services.UserService;
 import services.AppointmentService;
 import services.InventoryService;
+import stores.CsvReader;
 
 public class PharmacistService {
     
@@ -105,22 +104,19 @@ public class PharmacistService {
      * Loads pharmacists from a CSV file.
      */
     public void loadPharmacistsFromCSV() {
-        String line;
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_FILE_PATH))) {
-            br.readLine(); // Skip the header line
-            while ((line = br.readLine()) != null) {
-                String[] pharmacistData = line.split(DELIMITER);
-                if (pharmacistData.length == 3) {
-                    String pharmacistId = pharmacistData[0].trim();
-                    String name = pharmacistData[1].trim();
-                    String contactInformation = pharmacistData[2].trim();
+        try {
+            CsvReader.read(CSV_FILE_PATH, true, pharmacistData -> { // Skip the header line
+                if (pharmacistData.size() == 3) {
+                    String pharmacistId = pharmacistData.getTrimmed(0);
+                    String name = pharmacistData.getTrimmed(1);
+                    String contactInformation = pharmacistData.getTrimmed(2);
                     User existingUser = userService.getUserById(pharmacistId);
                     String password = (existingUser != null) ? existingUser.getPassword() : "defaultPassword";
 
                     // Create a new Patient object and add it to the collection
                     pharmacists.put(pharmacistId, new Pharmacist(existingUser != null ? existingUser : new User(pharmacistId, password, UserRole.PATIENT), name, contactInformation));
                 }
-            }
+            });
         } catch (IOException e) {
             System.out.println("Error reading pharmacists CSV file: " + e.getMessage());
         }
@@ -153,14 +149,7 @@ public class PharmacistService {
      * @return a list of appointments for the specified patient
      */
     private List<Appointment> getAppointmentsByPatientId(String patientId) {
-        List<Appointment> allAppointments = appointmentService.viewScheduledAppointments();
-        List<Appointment> patientAppointments = new ArrayList<>();
-        for (Appointment appointment : allAppointments) {
-            if (appointment.getPatientId().equals(patientId)) {
-                patientAppointments.add(appointment);
-            }
-        }
-        return patientAppointments;
+        return appointmentService.getAppointmentsByPatient(patientId);
     }
 
     /**
@@ -19,38 +19,33 @@ import enums.UserRole;
  */
 public class ProjectAdminService implements IProjectAdmService {
 
-    private Administrator administrator;
-    private StaffDataStore staffDataStore;
-    private IInventoryService inventoryService;
-    private UserService userService;
-    private ReplenishmentService replenishmentService;  // Add this attribute
-    private PatientService patientService;
-
-    private static final String STAFF_CSV_PATH = "data/Staff_List.csv";
+    private final StaffDataStore staffDataStore;
+    private final IInventoryService inventoryService;
+    private final UserService userService;
+    private final ReplenishmentService replenishmentService;
+    private final PatientService patientService;
+
+    static final String STAFF_CSV_PATH = "data/Staff_List.csv"; // Also read by ApplicationContext to load the shared staff list
     private static final String DOCTOR_CSV_PATH = "data/doctor.csv";
     private static final String PHARMACIST_CSV_PATH = "data/pharmacist.csv";
 
     /**
-     * Constructs a ProjectAdminService with the specified Administrator and IInventoryService.
-     * Loads staff data from a CSV file upon initialization.
+     * Constructs a ProjectAdminService over the shared staff list and services. It holds no
+     * state of its own, so every administrator session uses the same instance.
      *
-     * @param administrator   The administrator managing the service.
+     * @param staffDataStore The shared staff list, already loaded from the staff CSV file.
      * @param inventoryService The inventory service to manage inventory-related operations.
      * @param userService The user service to manage user-related operations.
+     * @param replenishmentService The replenishment service to manage replenishment requests.
+     * @param patientService The patient service to manage patient records.
      */
-
-    public ProjectAdminService(Administrator administrator, IInventoryService inventoryService, UserService userService, PatientService patientService) {
-        this.administrator = administrator;
-        this.staffDataStore = new StaffDataStore();
+    public ProjectAdminService(StaffDataStore staffDataStore, IInventoryService inventoryService, UserService userService,
+                               ReplenishmentService replenishmentService, PatientService patientService) {
+        this.staffDataStore = staffDataStore;
         this.inventoryService = inventoryService;
         this.userService = userService;
-        this.replenishmentService = new ReplenishmentService();
-        this.patientService = patientService; // Initialize patientService
-        try {
-            staffDataStore.loadStaffFromCSV(STAFF_CSV_PATH);
-        } catch (IOException e) {
-            System.err.println("Error loading data: " + e.getMessage());
-        }
+        this.replenishmentService = replenishmentService;
+        this.patientService = patientService;
     }
 
     public PatientService getPatientService() {
@@ -119,6 +114,10 @@ public class ProjectAdminService implements IProjectAdmService {
             // Update the respective doctor or pharmacist CSV
             if (role.equalsIgnoreCase("Doctor")) {
                 addOrUpdateDoctorCSV(staffMember);
+                // The shared services read doctor.csv once, so tell them about the change
+                ApplicationContext context = ApplicationContext.getInstance();
+                context.getScheduleService().addDoctor(staffMember.getId());
+                context.getDoctorService().reloadDoctors();
             } else if (role.equalsIgnoreCase("Pharmacist")) {
                 addOrUpdatePharmacistCSV(staffMember);
             }
@@ -142,12 +141,7 @@ public class ProjectAdminService implements IProjectAdmService {
             return;
         }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter("data/User.csv", true))) {
-            writer.write(patient.getHospitalID() + "," + encryptedPassword + "," + patient.getRole());
-            writer.newLine();
-        } catch (IOException e) {
-            System.err.println("Error updating User.csv: " + e.getMessage());
-        }
+        userService.addUser(new User(patient.getHospitalID(), encryptedPassword, patient.getRole()));
 
         List<Patient> patients = new ArrayList<>(patientService.getPatients().values());
         patients.sort((p1, p2) -> p1.getHospitalID().compareToIgnoreCase(p2.getHospitalID()));
@@ -286,6 +280,7 @@ public class ProjectAdminService implements IProjectAdmService {
             // Remove from the specific CSV file based on role
             if (staffMember.getRole().equalsIgnoreCase("Doctor")) {
                 removed = removeFromCSV("data/doctor.csv", staffId);
+                ApplicationContext.getInstance().getDoctorService().reloadDoctors();
             } else if (staffMember.getRole().equalsIgnoreCase("Pharmacist")) {
                 removed = removeFromCSV("data/pharmacist.csv", staffId);
             }
@@ -361,6 +356,19 @@ public class ProjectAdminService implements IProjectAdmService {
         return List.copyOf(staffDataStore.getStaffList().values());
     }
 
+    /**
+     * Retrieves one page of staff members in staff ID order.
+     *
+     * @param role         The role to list, or null for all staff.
+     * @param afterStaffId The last staff ID of the previous page, or null for the first page.
+     * @param pageSize     The maximum number of staff members to return.
+     * @return A list of staff members on the page.
+     */
+    @Override
+    public List<Staff> getStaffPage(UserRole role, String afterStaffId, int pageSize) {
+        return staffDataStore.getStaffPage(role, afterStaffId, pageSize);
+    }
+
     // ---------------------- Inventory Management ----------------------
 
     /**
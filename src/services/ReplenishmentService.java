@@ -9,6 +9,8 @@ import java.util.stream.Collectors;
 
 import enums.StatusEnum;
 import models.ReplenishmentRequest;
+import stores.CsvReader;
+import stores.CsvRow;
 
 public class ReplenishmentService {
 
@@ -86,15 +88,14 @@ public class ReplenishmentService {
      */
     public List<ReplenishmentRequest> getAllRequests() {
         List<ReplenishmentRequest> requests = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
+        try {
             // Skip the header line
-            String line = reader.readLine(); // Read and ignore the first line (header)
-            while ((line = reader.readLine()) != null) { // Read the rest of the file
-                ReplenishmentRequest request = parseCsvRow(line); // Process each row
+            CsvReader.read(csvFile, true, row -> {
+                ReplenishmentRequest request = parseCsvRow(row); // Process each row
                 if (request != null) {
                     requests.add(request);
                 }
-            }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -108,19 +109,15 @@ public class ReplenishmentService {
      * @return `true` if a request with `PENDING` status exists; otherwise, `false`.
      */
     private boolean isMedicineAlreadyRequested(String medicineName) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
-            String line;
+        try (CsvReader reader = new CsvReader(new FileReader(csvFile))) {
             // Skip header
-            reader.readLine();
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    String existingMedicine = parts[1].trim(); // Medicine name
-                    String status = parts[2].trim();          // Status
-                    if (existingMedicine.equalsIgnoreCase(medicineName)
-                            && status.equalsIgnoreCase(StatusEnum.PENDING.name())) {
-                        return true; // Medicine already requested with PENDING status
-                    }
+            reader.next();
+            while (reader.next()) {
+                CsvRow parts = reader.getRow();
+                if (parts.size() >= 3
+                        && parts.fieldEqualsIgnoreCase(1, medicineName) // Medicine name
+                        && parts.fieldEqualsIgnoreCase(2, StatusEnum.PENDING.name())) { // Status
+                    return true; // Medicine already requested with PENDING status
                 }
             }
         } catch (IOException e) {
@@ -144,19 +141,18 @@ public class ReplenishmentService {
     /**
      * Parses a single CSV row into a `ReplenishmentRequest` object.
      *
-     * @param csvRow The CSV row to parse.
+     * @param parts The CSV row to parse.
      * @return A `ReplenishmentRequest` object or `null` if the row is invalid.
      */
-    private ReplenishmentRequest parseCsvRow(String csvRow) {
-        String[] parts = csvRow.split(",");
-        if (parts.length < 3) return null;
+    private ReplenishmentRequest parseCsvRow(CsvRow parts) {
+        if (parts.size() < 3) return null;
 
-    String id = parts[0].trim();  // Use the ID from the CSV
-    List<String> medicines = List.of(parts[1].split(";")); // Assumes medicines are separated by semicolons
+    String id = parts.getTrimmed(0);  // Use the ID from the CSV
+    List<String> medicines = List.of(parts.getString(1).split(";")); // Assumes medicines are separated by semicolons
 
         StatusEnum status;
         try {
-            status = StatusEnum.valueOf(parts[2].trim());
+            status = parts.getEnum(2, StatusEnum.class);
         } catch (IllegalArgumentException e) {
             status = StatusEnum.PENDING;
             System.out.println("Invalid status value, defaulting to PENDING.");
@@ -1,161 +1,698 @@
 
 package services;
 
+import models.DoctorCalendar;
 import models.Schedule;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import interfaces.IScheduleService;
+import stores.BinarySnapshot;
+import stores.CsvReader;
+import stores.CsvRow;
+import stores.ScheduleFileReader;
+import stores.ScheduleJournal;
 
 /**
  * The {@code ScheduleService} class manages the scheduling of appointments for doctors.
  * It handles loading and saving schedules from/to a CSV file, booking appointments,
  * and modifying the availability status of time slots.
+ * <p>
+ * Slot changes are appended to a write-ahead journal instead of rewriting the whole
+ * schedule file. A background compactor periodically folds the journal into a fresh
+ * snapshot of {@code schedule.csv}.
+ * <p>
+ * A single shared instance is obtained through {@link #getInstance()}. Each doctor's
+ * calendar is parsed the first time it is accessed and then kept in memory as a
+ * {@link DoctorCalendar}. Every doctor in doctor.csv works the recurring working-hours
+ * template of the calendar; the schedule file only stores exceptions to it (blocked and
+ * booked slots), so it does not grow with the length of the calendar.
+ * <p>
+ * Unless binary snapshots are turned off, all calendars are loaded together from a binary
+ * copy of the schedule file, which is rewritten with every snapshot of the schedule file and
+ * ignored once the schedule file changes behind its back.
  */
 public class ScheduleService implements IScheduleService{
     private static final String SCHEDULE_FILE = "data/schedule.csv"; // Path to the schedule CSV file
+    private static final String JOURNAL_FILE = "data/schedule_journal.csv"; // Path to the slot change journal
+    private static final String SNAPSHOT_FILE = "data/schedule.bin"; // Binary copy of the schedule file, read on startup
+    private static final int SNAPSHOT_VERSION = 1; // Format version of the binary snapshot
+    private static final long COMPACTION_INTERVAL_SECONDS = 30; // How often the journal is folded into the snapshot
+    private static final int SCHEDULE_WINDOW_DAYS = 366; // Days covered by getScheduleMap and getDoctorSchedule
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
-    private final Map<String, Map<LocalDate, Map<LocalTime, Schedule>>> scheduleMap; // doctorID -> (date -> (time -> Schedule))
+    private static ScheduleService instance; // Process-wide shared instance
+    private final Map<String, DoctorCalendar> calendars; // doctorID -> calendar of that doctor
+    private final Set<String> doctorIds; // Doctors listed in doctor.csv
+    private final Set<String> unknownDoctorIds; // IDs already looked up without finding a schedule
+    private final ScheduleJournal journal; // Append-only log of slot changes since the last snapshot
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock(); // Slot changes share it; compaction holds it exclusively
+    private final ScheduledExecutorService compactor; // Background thread that folds the journal into the snapshot
+    private boolean allCalendarsLoaded; // Whether every doctor's calendar has been loaded
+    private boolean snapshotChecked; // Whether loading from the binary snapshot has been tried
+    private int loadCount; // Number of per-doctor calendar loads from the schedule file
+    private long parseTimeNanos; // Total time spent parsing the schedule file
 
     /**
-     * Constructs a {@code ScheduleService} and loads the schedule from the CSV file.
+     * Returns the process-wide shared {@code ScheduleService}, creating it on first use.
+     *
+     * @return the shared schedule service
      */
-  
-    public ScheduleService() {
-        this.scheduleMap = new HashMap<>();
+    public static synchronized ScheduleService getInstance() {
+        if (instance == null) {
+            instance = new ScheduleService();
+        }
+        return instance;
+    }
 
-        if (!Files.exists(Paths.get(SCHEDULE_FILE))) {
-            // If schedule.csv doesn't exist, generate schedule for all doctors
-            generateSchedulesForAllDoctors();
-        } else {
-            loadSchedule(); // Load any existing schedules
-            ensureSchedulesExist(); // Ensure schedules exist for all doctors
+    /**
+     * Constructs a {@code ScheduleService}. Doctor calendars are loaded lazily from the
+     * CSV file the first time they are accessed. Private, so that only one instance, with
+     * one compactor thread, ever folds the journal into the schedule file.
+     */
+    private ScheduleService() {
+        this.calendars = new ConcurrentHashMap<>();
+        this.doctorIds = new LinkedHashSet<>(loadDoctorIds());
+        this.unknownDoctorIds = ConcurrentHashMap.newKeySet();
+        this.journal = new ScheduleJournal(JOURNAL_FILE);
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactInBackground, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::compact, "schedule-compactor-shutdown"));
+    }
+
+    // Load doctor IDs from doctors.csv
+    private List<String> loadDoctorIds() {
+        List<String> doctorIds = new ArrayList<>();
+        try {
+            CsvReader.read("data/doctor.csv", true, row -> doctorIds.add(row.getString(0))); // Assuming the doctor ID is in the first column
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return doctorIds;
+    }
+    
+    /**
+     * Returns the schedules of all doctors from today until a year ahead, loading any calendar
+     * that has not been accessed yet. The returned map is a copy built from the calendars;
+     * changing it does not change the schedule.
+     *
+     * @return a map of doctor ID to that doctor's schedule
+     */
+    public Map<String, Map<LocalDate, Map<LocalTime, Schedule>>> getScheduleMap() {
+        loadAllCalendars();
+        Map<String, Map<LocalDate, Map<LocalTime, Schedule>>> scheduleMap = new HashMap<>();
+        for (String doctorID : calendars.keySet()) {
+            scheduleMap.put(doctorID, getDoctorSchedule(doctorID));
         }
+        return scheduleMap;
     }
 
-    // Generates schedules for all doctors in doctors.csv
-    private void generateSchedulesForAllDoctors() {
-        List<String> doctorIds = loadDoctorIds(); // Load doctor IDs from doctors.csv
+    /**
+     * Returns the schedule of a single doctor from today until a year ahead as a map of date to
+     * time slot. The returned map is a copy built from the doctor's calendar; changing it does
+     * not change the schedule.
+     *
+     * @param doctorID the ID of the doctor
+     * @return the doctor's schedule (date -> time -> slot), or {@code null} if the doctor has none
+     */
+    public Map<LocalDate, Map<LocalTime, Schedule>> getDoctorSchedule(String doctorID) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar == null) {
+            return null;
+        }
+        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = new HashMap<>();
         LocalDate today = LocalDate.now();
-        LocalDate endOfYear = LocalDate.of(today.getYear(), 12, 31);
+        for (Schedule schedule : calendar.getSlots(today, today.plusDays(SCHEDULE_WINDOW_DAYS - 1))) {
+            doctorSchedule.computeIfAbsent(schedule.getDate(), k -> new HashMap<>()).put(schedule.getTimeSlot(), schedule);
+        }
+        return doctorSchedule;
+    }
 
-        for (String doctorID : doctorIds) {
-            generateSchedule(doctorID, today, endOfYear, "Available");
+    /**
+     * Returns the calendar of a single doctor, loading it from the schedule file on first access.
+     *
+     * @param doctorID the ID of the doctor
+     * @return the doctor's calendar, or {@code null} if the doctor has no schedule
+     */
+    public DoctorCalendar getCalendar(String doctorID) {
+        DoctorCalendar calendar = calendars.get(doctorID);
+        if (calendar == null && !unknownDoctorIds.contains(doctorID)) {
+            calendar = loadCalendar(doctorID);
         }
+        return calendar;
     }
 
-    // Ensures all doctors in doctors.csv have a schedule in schedule.csv
-    private void ensureSchedulesExist() {
-        List<String> doctorIds = loadDoctorIds(); // Load doctor IDs from doctors.csv
-        LocalDate today = LocalDate.now();
-        LocalDate endOfYear = LocalDate.of(today.getYear(), 12, 31);
+    /**
+     * Returns the available time slots of a doctor on a date, in time order.
+     *
+     * @param doctorID the ID of the doctor
+     * @param date the date to look up
+     * @return a list of available slot times, empty if the doctor has no schedule on that date
+     */
+    public List<LocalTime> getAvailableSlots(String doctorID, LocalDate date) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        return calendar == null ? new ArrayList<>() : calendar.getAvailableSlots(date);
+    }
 
-        for (String doctorID : doctorIds) {
-            if (!scheduleMap.containsKey(doctorID)) {
-                generateSchedule(doctorID, today, endOfYear, "Available");
+    /**
+     * Returns the next booked slots of a doctor that start after the given time, in time order.
+     *
+     * @param doctorID the ID of the doctor
+     * @param after the time after which bookings are returned
+     * @param limit the maximum number of bookings to return
+     * @return a list of at most {@code limit} booked slots, empty if the doctor has no schedule
+     */
+    public List<Schedule> getUpcomingBookings(String doctorID, LocalDateTime after, int limit) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        return calendar == null ? new ArrayList<>() : calendar.getUpcomingBookings(after, limit);
+    }
+
+    /**
+     * Returns the booked slots of a doctor that start in the range [from, to), in time order.
+     *
+     * @param doctorID the ID of the doctor
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return a list of booked slots, empty if the doctor has no schedule
+     */
+    public List<Schedule> getBookedSlots(String doctorID, LocalDateTime from, LocalDateTime to) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        return calendar == null ? new ArrayList<>() : calendar.getBookedSlots(from, to);
+    }
+
+    /**
+     * Returns the earliest available slots across all doctors in the next days, starting now.
+     *
+     * @param limit the maximum number of slots to return
+     * @param days the number of days to search, today included
+     * @return a list of at most {@code limit} available slots, earliest first
+     */
+    public List<Schedule> findEarliestAvailableSlots(int limit, int days) {
+        LocalDateTime now = LocalDateTime.now();
+        return findEarliestAvailableSlots(now, now.toLocalDate().plusDays(days - 1L), limit);
+    }
+
+    /**
+     * Returns the earliest available slots across all doctors that start at or after the given
+     * time and no later than the given date. Slots at the same time are ordered by doctor ID.
+     * <p>
+     * Every doctor contributes a cursor holding their next free slot, and the cursors are kept
+     * in a priority queue ordered by that slot. Each result takes one poll and one advance of a
+     * single doctor's cursor, and days without free slots are skipped on their free-slot count,
+     * so the cost depends on the number of doctors and results, not on the length of the calendars.
+     *
+     * @param from the earliest start time of a slot
+     * @param until the last date to search, inclusive
+     * @param limit the maximum number of slots to return
+     * @return a list of at most {@code limit} available slots, earliest first
+     */
+    public List<Schedule> findEarliestAvailableSlots(LocalDateTime from, LocalDate until, int limit) {
+        loadAllCalendars();
+        PriorityQueue<SlotCursor> queue = new PriorityQueue<>();
+        for (DoctorCalendar calendar : calendars.values()) {
+            LocalDateTime next = calendar.nextAvailableSlot(from, until);
+            if (next != null) {
+                queue.add(new SlotCursor(calendar, next));
             }
         }
-    }
 
-    // Load doctor IDs from doctors.csv
-    private List<String> loadDoctorIds() {
-        List<String> doctorIds = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader("data/doctor.csv"))) {
-            String line;
-            br.readLine(); // Skip header
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                doctorIds.add(parts[0]); // Assuming the doctor ID is in the first column
+        List<Schedule> slots = new ArrayList<>();
+        while (slots.size() < limit && !queue.isEmpty()) {
+            SlotCursor cursor = queue.poll();
+            slots.add(new Schedule(cursor.calendar.getDoctorID(), cursor.next.toLocalDate(),
+                    cursor.next.toLocalTime(), DoctorCalendar.AVAILABLE));
+            LocalDateTime next = cursor.calendar.nextAvailableSlot(cursor.next.plusMinutes(DoctorCalendar.SLOT_MINUTES), until);
+            if (next != null) {
+                queue.add(new SlotCursor(cursor.calendar, next));
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        return doctorIds;
+        return slots;
+    }
+
+    /**
+     * Returns the number of times a doctor's calendar has been parsed from the schedule file.
+     *
+     * @return the load count
+     */
+    public int getLoadCount() {
+        return loadCount;
     }
+
+    /**
+     * Returns the total time spent parsing the schedule file, in milliseconds.
+     *
+     * @return the parse time in milliseconds
+     */
+    public long getParseTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(parseTimeNanos);
+    }
+   
     
-    private void generateSchedule(String doctorID, LocalDate startDate, LocalDate endDate, String status) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SCHEDULE_FILE, true))) {
-            if (Files.size(Paths.get(SCHEDULE_FILE)) == 0) {
-                // Write header if file is empty
-                writer.write("doctorID,date,time,status");
-                writer.newLine();
+
+    /**
+     * Loads one doctor's calendar from the CSV file into memory, then applies any journaled
+     * changes for that doctor. Only rows belonging to the doctor are parsed. Doctors listed in
+     * doctor.csv always get a calendar, even without any rows, since their slots come from the
+     * working-hours template.
+     * The file should contain data in the format: doctorID, date, time, status.
+     *
+     * @param doctorID the ID of the doctor whose calendar to load
+     * @return the doctor's calendar, or {@code null} if the doctor is unknown
+     */
+    private synchronized DoctorCalendar loadCalendar(String doctorID) {
+        if (calendars.containsKey(doctorID)) {
+            return calendars.get(doctorID); // Loaded by another caller in the meantime
+        }
+        if (BinarySnapshot.ENABLED) {
+            loadAllCalendars(); // One sequential read of the binary snapshot covers every doctor
+            DoctorCalendar calendar = calendars.get(doctorID);
+            if (calendar == null) {
+                unknownDoctorIds.add(doctorID);
+            }
+            return calendar;
+        }
+        long start = System.nanoTime();
+        DoctorCalendar calendar = new DoctorCalendar(doctorID);
+        boolean found = doctorIds.contains(doctorID);
+        String prefix = doctorID + ",";
+        if (Files.exists(Paths.get(SCHEDULE_FILE))) {
+            try {
+                found |= ScheduleFileReader.read(Paths.get(SCHEDULE_FILE), doctorID,
+                        (id, epochDay, slot, status) -> calendar.setSlotStatus(epochDay, slot, status)) > 0;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (String record : journal.readRecords()) {
+            if (record.startsWith(prefix)) {
+                found |= applyRecord(calendar, CsvReader.parse(record)); // Apply slot changes made since the last snapshot
             }
+        }
+        loadCount++;
+        parseTimeNanos += System.nanoTime() - start;
 
-            // Loop through each date
-            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-                LocalTime timeSlot = LocalTime.of(9, 0);
+        if (!found) {
+            unknownDoctorIds.add(doctorID); // Do not scan the file again for this ID
+            return null;
+        }
+        calendars.put(doctorID, calendar);
+        return calendar;
+    }
 
-                while (!timeSlot.isAfter(LocalTime.of(16, 30))) {
-                    // Write doctorID, date as string, time as string, and status
-                    writer.write(String.join(",", doctorID, date.format(DATE_FORMAT), timeSlot.format(TIME_FORMAT), status));
-                    writer.newLine();
+    /**
+     * Loads the calendars of all doctors that are not loaded yet in a single pass over the
+     * schedule file, instead of one pass per doctor. When the binary snapshot is still in step
+     * with the schedule file, it is read instead; otherwise a new snapshot is written once the
+     * schedule file has been parsed.
+     */
+    private synchronized void loadAllCalendars() {
+        if (allCalendarsLoaded || loadSnapshot()) {
+            return;
+        }
+        Map<String, DoctorCalendar> loaded = new HashMap<>();
+        for (String doctorID : doctorIds) {
+            if (!calendars.containsKey(doctorID)) {
+                loaded.put(doctorID, new DoctorCalendar(doctorID));
+            }
+        }
+        long start = System.nanoTime();
+        if (Files.exists(Paths.get(SCHEDULE_FILE))) {
+            try {
+                ScheduleFileReader.read(Paths.get(SCHEDULE_FILE), null, (doctorID, epochDay, slot, status) -> {
+                    DoctorCalendar calendar = calendarToLoad(loaded, doctorID);
+                    if (calendar != null) {
+                        calendar.setSlotStatus(epochDay, slot, status);
+                    }
+                });
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        for (String record : journal.readRecords()) {
+            applyToUnloaded(loaded, CsvReader.parse(record)); // Apply slot changes made since the last snapshot
+        }
+        loadCount++;
+        parseTimeNanos += System.nanoTime() - start;
+
+        calendars.putAll(loaded);
+        unknownDoctorIds.removeAll(loaded.keySet());
+        allCalendarsLoaded = true;
+        if (BinarySnapshot.ENABLED && Files.exists(Paths.get(SCHEDULE_FILE))) {
+            saveSnapshot(); // The next start reads this instead of the schedule file
+        }
+    }
 
-                    // Move to the next time slot
-                    timeSlot = timeSlot.plusMinutes(30);
+    /**
+     * Loads every calendar from the binary snapshot, then applies the journaled changes made
+     * since. This is only tried before any calendar has been loaded.
+     *
+     * @return {@code true} if the calendars were loaded, {@code false} if the snapshot is
+     *         missing, stale or unreadable and the schedule file has to be parsed instead
+     */
+    private boolean loadSnapshot() {
+        if (snapshotChecked || !calendars.isEmpty()) {
+            return false;
+        }
+        snapshotChecked = true;
+        long start = System.nanoTime();
+        DataInputStream in = BinarySnapshot.open(SNAPSHOT_FILE, SCHEDULE_FILE, SNAPSHOT_VERSION);
+        if (in == null) {
+            return false;
+        }
+        Map<String, DoctorCalendar> loaded = new HashMap<>();
+        for (String doctorID : doctorIds) {
+            loaded.put(doctorID, new DoctorCalendar(doctorID));
+        }
+        try {
+            int calendarCount = in.readInt();
+            for (int i = 0; i < calendarCount; i++) {
+                DoctorCalendar calendar = loaded.computeIfAbsent(in.readUTF(), DoctorCalendar::new);
+                int slotCount = in.readInt();
+                for (int j = 0; j < slotCount; j++) {
+                    long epochDay = in.readLong();
+                    int slot = in.readUnsignedByte();
+                    String status = in.readBoolean() ? in.readUTF() : DoctorCalendar.BLOCKED; // Patient ID if booked
+                    calendar.setSlotStatus(epochDay, slot, status);
                 }
             }
-            // System.out.println("Schedule generated for " + doctorID);
-        } catch (IOException e) {
-            e.printStackTrace();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading schedule snapshot, reading the CSV file instead: " + e.getMessage());
+            return false;
+        }
+        for (String record : journal.readRecords()) {
+            applyToUnloaded(loaded, CsvReader.parse(record)); // Apply slot changes made since the snapshot
         }
+        loadCount++;
+        parseTimeNanos += System.nanoTime() - start;
+
+        calendars.putAll(loaded);
+        unknownDoctorIds.removeAll(loaded.keySet());
+        allCalendarsLoaded = true;
+        return true;
     }
 
-    public Map<String, Map<LocalDate, Map<LocalTime, Schedule>>> getScheduleMap() {
-        return scheduleMap;
+    // Writes every calendar to the binary snapshot, with no slot change in between
+    private void saveSnapshot() {
+        snapshotLock.writeLock().lock();
+        try {
+            BinarySnapshot.write(SNAPSHOT_FILE, SCHEDULE_FILE, SNAPSHOT_VERSION, out -> {
+                out.writeInt(calendars.size());
+                for (DoctorCalendar calendar : calendars.values()) {
+                    List<Schedule> slots = calendar.getExceptionSlots(); // Blocked and booked slots only
+                    out.writeUTF(calendar.getDoctorID());
+                    out.writeInt(slots.size());
+                    for (Schedule slot : slots) {
+                        boolean booked = !DoctorCalendar.BLOCKED.equals(slot.getStatus());
+                        out.writeLong(slot.getDate().toEpochDay());
+                        out.writeByte(DoctorCalendar.slotIndex(slot.getTimeSlot()));
+                        out.writeBoolean(booked);
+                        if (booked) {
+                            out.writeUTF(slot.getStatus());
+                        }
+                    }
+                }
+            });
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    // Applies a record to the calendar being loaded for its doctor, skipping doctors already in memory
+    private void applyToUnloaded(Map<String, DoctorCalendar> loaded, CsvRow row) {
+        if (row.size() == 0 || row.isBlank(0)) {
+            return;
+        }
+        DoctorCalendar calendar = calendarToLoad(loaded, row.getString(0));
+        if (calendar != null) {
+            applyRecord(calendar, row);
+        }
+    }
+
+    // Returns the calendar being loaded for a doctor, or null if the doctor is already in memory
+    private DoctorCalendar calendarToLoad(Map<String, DoctorCalendar> loaded, String doctorID) {
+        if (calendars.containsKey(doctorID)) {
+            return null;
+        }
+        DoctorCalendar calendar = loaded.get(doctorID);
+        if (calendar == null) {
+            calendar = new DoctorCalendar(doctorID); // Doctor with rows but not listed in doctor.csv
+            loaded.put(doctorID, calendar);
+        }
+        return calendar;
     }
-   
-    
 
     /**
-     * Loads the schedule data from the CSV file into memory.
-     * The file should contain data in the format: doctorID, date, time, status.
+     * Replays every journaled slot change on top of the in-memory calendars, in the order
+     * the changes were made. Records are absolute status assignments, so replaying a
+     * record that is already reflected in memory has no effect. Records for doctors whose
+     * calendar is not loaded yet are picked up when that calendar is loaded.
      */
-    private void loadSchedule() {
-        try (BufferedReader br = Files.newBufferedReader(Paths.get(SCHEDULE_FILE))) {
-            String line;
-            br.readLine(); // Skip header line
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                
-                if (parts.length == 4) {
-                    try {
-                        String doctorID = parts[0];
-                        LocalDate date = LocalDate.parse(parts[1], DATE_FORMAT);
-                        LocalTime timeSlot = LocalTime.parse(parts[2], TIME_FORMAT);
-                        String status = parts[3]; // Status (Available, Blocked, or Patient ID)
-
-                        Schedule schedule = new Schedule(doctorID, date, timeSlot, status);
-                        scheduleMap.computeIfAbsent(doctorID, k -> new HashMap<>())
-                                   .computeIfAbsent(date, k -> new HashMap<>())
-                                   .put(timeSlot, schedule);
-                    } catch (DateTimeParseException e) {
-                        System.out.println("Error parsing date or time in line: " + line);
-                        e.printStackTrace();
-                    }
+    private synchronized void replayJournal() {
+        for (String record : journal.readRecords()) {
+            DoctorCalendar calendar = calendars.get(record.substring(0, record.indexOf(',')));
+            if (calendar != null) {
+                applyRecord(calendar, CsvReader.parse(record));
+            }
+        }
+    }
+
+    /**
+     * Applies a single CSV record (doctorID, date, time, status) to a doctor's calendar.
+     *
+     * @param calendar the calendar of the doctor named in the record
+     * @param row the CSV record to apply
+     * @return {@code true} if the record was applied, {@code false} if it was malformed
+     */
+    private boolean applyRecord(DoctorCalendar calendar, CsvRow row) {
+        if (row.size() == 4 && !row.isBlank(3)) {
+            try {
+                LocalDate date = row.getDate(1);
+                LocalTime timeSlot = row.getTime(2);
+                String status = statusOf(row); // Status (Available, Blocked, or Patient ID)
+
+                if (calendar.setStatus(date, timeSlot, status)) {
+                    return true;
                 }
+                System.out.println("Time is not a valid slot in line: " + row);
+            } catch (DateTimeParseException e) {
+                System.out.println("Error parsing date or time in line: " + row);
+                e.printStackTrace();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return false;
+    }
+
+    // Returns the status field of a record, sharing the constant strings for the common statuses
+    private static String statusOf(CsvRow row) {
+        if (row.fieldEquals(3, DoctorCalendar.AVAILABLE)) {
+            return DoctorCalendar.AVAILABLE;
+        }
+        if (row.fieldEquals(3, DoctorCalendar.BLOCKED)) {
+            return DoctorCalendar.BLOCKED;
+        }
+        return row.getString(3);
+    }
+
+    /**
+     * Sets the status of a slot if it still has the expected status, and appends the change to
+     * the journal. This replaces rewriting the whole schedule file on every change.
+     * <p>
+     * The check, the change and the journal append happen under the calendar's lock, so of
+     * several concurrent changes to the same slot exactly one succeeds, and journal records of
+     * a slot are always in the order the changes were made. Changes to different doctors only
+     * share the snapshot read lock, which is held exclusively only while the journal is compacted.
+     *
+     * @param calendar the calendar holding the slot
+     * @param date the date of the slot
+     * @param timeSlot the time of the slot
+     * @param expected the status the slot must have for the change to happen
+     * @param status the new status of the slot
+     * @return {@code true} if the status was changed, {@code false} if the slot had a different status
+     */
+    private boolean recordChange(DoctorCalendar calendar, LocalDate date, LocalTime timeSlot, String expected, String status) {
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (calendar) {
+                if (!calendar.compareAndSetStatus(date, timeSlot, expected, status)) {
+                    return false;
+                }
+                journal.append(toRecord(calendar.getDoctorID(), date, timeSlot, status));
+                return true;
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes every slot that starts in [from, to) and has the expected status to the new
+     * status, as one batch: the calendar masks are updated in memory and all changes are
+     * appended to the journal in a single write. Booked slots in the range are left as they
+     * are and added to {@code skipped}.
+     *
+     * @param calendar the calendar holding the slots
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @param expected the status a slot must have to be changed, "Available" or "Blocked"
+     * @param status the new status of the slots, "Available" or "Blocked"
+     * @param skipped receives the booked slots in the range
+     * @return the number of slots changed
+     */
+    private int changeRange(DoctorCalendar calendar, LocalDateTime from, LocalDateTime to, String expected, String status,
+                            List<Schedule> skipped) {
+        snapshotLock.readLock().lock();
+        try {
+            synchronized (calendar) {
+                skipped.addAll(calendar.getBookedSlots(from, to));
+                List<Schedule> changed = calendar.compareAndSetRange(from, to, expected, status);
+                List<String> records = new ArrayList<>(changed.size());
+                for (Schedule schedule : changed) {
+                    records.add(toRecord(calendar.getDoctorID(), schedule.getDate(), schedule.getTimeSlot(), status));
+                }
+                journal.appendAll(records);
+                return changed.size();
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Blocks every available slot of a doctor that starts in [from, to), as one batch that is
+     * persisted with a single journal write. Booked slots are not changed.
+     *
+     * @param doctorID the ID of the doctor
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the booked slots in the range that were skipped, or {@code null} if the doctor has no schedule
+     */
+    public List<Schedule> blockRange(String doctorID, LocalDateTime from, LocalDateTime to) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar == null) {
+            return null;
+        }
+        List<Schedule> skipped = new ArrayList<>();
+        changeRange(calendar, from, to, DoctorCalendar.AVAILABLE, DoctorCalendar.BLOCKED, skipped);
+        return skipped;
+    }
+
+    /**
+     * Unblocks every blocked slot of a doctor that starts in [from, to), as one batch that is
+     * persisted with a single journal write. Booked slots are not changed.
+     *
+     * @param doctorID the ID of the doctor
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the booked slots in the range that were skipped, or {@code null} if the doctor has no schedule
+     */
+    public List<Schedule> unblockRange(String doctorID, LocalDateTime from, LocalDateTime to) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar == null) {
+            return null;
+        }
+        List<Schedule> skipped = new ArrayList<>();
+        changeRange(calendar, from, to, DoctorCalendar.BLOCKED, DoctorCalendar.AVAILABLE, skipped);
+        return skipped;
+    }
+
+    /**
+     * Formats a slot as a CSV record (doctorID, date, time, status).
+     */
+    private String toRecord(String doctorID, LocalDate date, LocalTime timeSlot, String status) {
+        return doctorID + "," + date.format(DATE_FORMAT) + "," + timeSlot.format(TIME_FORMAT) + "," + status;
+    }
+
+    // Compacts on the compactor thread; an exception would otherwise cancel every later run silently
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            System.err.println("Error compacting schedule journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot of the schedule file and empties the journal.
+     * The journal is replayed first so that changes left in it by an earlier run are not lost
+     * when the snapshot is written.
+     */
+    public synchronized void compact() {
+        if (journal.getPendingRecords() == 0) {
+            return; // Nothing to fold into the snapshot
+        }
+        for (String record : journal.readRecords()) {
+            getCalendar(record.substring(0, record.indexOf(','))); // Journaled doctors must be in memory
+        }
+        snapshotLock.writeLock().lock(); // No slot changes between writing the snapshot and truncating the journal
+        try {
+            replayJournal();
+            if (saveSchedule()) {
+                journal.truncate();
+            }
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registers a doctor added to doctor.csv while the application is running, so that the
+     * doctor gets a calendar following the working-hours template without a restart.
+     *
+     * @param doctorID the ID of the new doctor
+     */
+    public synchronized void addDoctor(String doctorID) {
+        doctorIds.add(doctorID);
+        unknownDoctorIds.remove(doctorID);
+        if (allCalendarsLoaded) {
+            calendars.computeIfAbsent(doctorID, DoctorCalendar::new); // Otherwise it is loaded with the others
+        }
+    }
+
+    /**
+     * Writes out pending changes, then drops every loaded calendar, so that the next access
+     * loads them again from the files.
+     */
+    public synchronized void reload() {
+        compact();
+        calendars.clear();
+        unknownDoctorIds.clear();
+        allCalendarsLoaded = false;
+        snapshotChecked = false;
+    }
+
+    /**
+     * Forces any journaled slot changes into the schedule snapshot, for example on logout.
+     */
+    public void flush() {
+        compact();
     }
-    
 
     public boolean cancelAppointment(String doctorID, LocalDate date, LocalTime timeSlot, String patientID) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Schedule schedule = doctorSchedule.get(date).get(timeSlot);
-            if (schedule != null && patientID.equals(schedule.getStatus())) {
-                schedule.setStatus("Available"); // Reset status to "Available"
-                saveSchedule(); // Save changes to CSV
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar != null) {
+            if (recordChange(calendar, date, timeSlot, patientID, DoctorCalendar.AVAILABLE)) { // Reset status to "Available"
                 System.out.println("Appointment canceled and time slot is now available.");
 
             } 
@@ -177,16 +714,67 @@ public class ScheduleService implements IScheduleService{
      * @return {@code true} if the booking was successful, {@code false} otherwise
      */
     public boolean bookAppointment(String doctorID, LocalDate date, LocalTime timeSlot, String patientID) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Schedule schedule = doctorSchedule.get(date).get(timeSlot);
-            if (schedule != null && "Available".equals(schedule.getStatus())) {
-                schedule.setStatus(patientID); // Update status with patient ID
-                saveSchedule(); // Save changes to CSV
-                return true; // Booking successful
+        DoctorCalendar calendar = getCalendar(doctorID);
+        // Reserve the slot only if it is still available; of concurrent bookings exactly one succeeds
+        return calendar != null && recordChange(calendar, date, timeSlot, DoctorCalendar.AVAILABLE, patientID);
+    }
+
+    /**
+     * Books several slots as one batch. The slots of each doctor are reserved under that
+     * doctor's calendar lock and journaled with a single write, so a batch for one doctor
+     * costs one journal write.
+     *
+     * @param bookings the slots to book; the status of each is the ID of the patient
+     * @return for each booking, in order, whether the slot was still available and is now booked
+     */
+    public List<Boolean> bookAppointments(List<Schedule> bookings) {
+        return recordChanges(bookings);
+    }
+
+    /**
+     * Returns the status of a slot: "Available", "Blocked" or the ID of the patient who booked it.
+     *
+     * @param doctorID the ID of the doctor
+     * @param date the date of the slot
+     * @param timeSlot the time of the slot
+     * @return the status, or {@code null} if the doctor has no such slot
+     */
+    public String getSlotStatus(String doctorID, LocalDate date, LocalTime timeSlot) {
+        DoctorCalendar calendar = getCalendar(doctorID);
+        return calendar == null ? null : calendar.getStatus(date, timeSlot);
+    }
+
+    // Books slots (Available -> patient ID), taking each doctor's lock and writing the journal once per doctor
+    private List<Boolean> recordChanges(List<Schedule> slots) {
+        Boolean[] results = new Boolean[slots.size()];
+        Arrays.fill(results, Boolean.FALSE);
+        Map<String, List<Integer>> indexesByDoctor = new LinkedHashMap<>();
+        for (int i = 0; i < slots.size(); i++) {
+            indexesByDoctor.computeIfAbsent(slots.get(i).getDoctorID(), k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<String, List<Integer>> entry : indexesByDoctor.entrySet()) {
+            DoctorCalendar calendar = getCalendar(entry.getKey());
+            if (calendar == null) {
+                continue;
+            }
+            snapshotLock.readLock().lock();
+            try {
+                synchronized (calendar) {
+                    List<String> records = new ArrayList<>();
+                    for (int i : entry.getValue()) {
+                        Schedule slot = slots.get(i);
+                        if (calendar.compareAndSetStatus(slot.getDate(), slot.getTimeSlot(), DoctorCalendar.AVAILABLE, slot.getStatus())) {
+                            results[i] = Boolean.TRUE;
+                            records.add(toRecord(calendar.getDoctorID(), slot.getDate(), slot.getTimeSlot(), slot.getStatus()));
+                        }
+                    }
+                    journal.appendAll(records);
+                }
+            } finally {
+                snapshotLock.readLock().unlock();
             }
         }
-        return false; // Booking failed
+        return Arrays.asList(results);
     }
 
     /**
@@ -199,26 +787,24 @@ public class ScheduleService implements IScheduleService{
     
 
     public void setAvailable1(String doctorID, LocalDate date, LocalTime timeSlot) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Schedule schedule = doctorSchedule.get(date).get(timeSlot);
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar != null) {
+            String status = calendar.getStatus(date, timeSlot);
             
-            if (schedule != null && schedule.getStatus().startsWith("P")){
-                schedule.setStatus("Available"); // Change status to Available
-                saveSchedule(); // Save changes to CSV
+            if (status != null && status.startsWith("P")){
+                recordChange(calendar, date, timeSlot, status, DoctorCalendar.AVAILABLE); // Change status to Available
             } //else if(schedule != null && "Available".equals(schedule.getStatus())){
                 //System.out.println("");
             //}
         }
     }
     public void setUnavailable2(String doctorID, LocalDate date, LocalTime timeSlot, String patientID) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Schedule schedule = doctorSchedule.get(date).get(timeSlot);
-            if (schedule != null && "Available".equals(schedule.getStatus())) {
-                schedule.setStatus(patientID); // Change status to Blocked
-                saveSchedule(); // Save changes to CSV
-            } else if(schedule != null && "Blocked".equals(schedule.getStatus()))
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar != null) {
+            String status = calendar.getStatus(date, timeSlot);
+            if (DoctorCalendar.AVAILABLE.equals(status)) {
+                recordChange(calendar, date, timeSlot, DoctorCalendar.AVAILABLE, patientID); // Change status to Blocked
+            } else if(DoctorCalendar.BLOCKED.equals(status))
                 System.out.println("Already blocked");
         }
     }
@@ -300,66 +886,48 @@ public class ScheduleService implements IScheduleService{
             }
         }
 
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
+        DoctorCalendar calendar = getCalendar(doctorID);
 
-        if (doctorSchedule == null) {
+        if (calendar == null) {
             System.out.println("No schedule found for doctor: " + doctorID);
             return;
         }
 
-        boolean anySetAvailable = false;
-
+        // Report the slots that are already available, then unblock the rest of the range in one batch
+        LocalDateTime from = LocalDateTime.of(startDate, startTime);
+        LocalDateTime to = LocalDateTime.of(endDate, endTime).plusMinutes(DoctorCalendar.SLOT_MINUTES);
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
             LocalTime availableStartTime = date.equals(startDate) ? startTime : LocalTime.of(9, 0);
             LocalTime availableEndTime = date.equals(endDate) ? endTime : LocalTime.of(16, 30);
-
-            Map<LocalTime, Schedule> dailySchedule = doctorSchedule.get(date);
-            if (dailySchedule == null) continue;
-
-            for (LocalTime time = availableStartTime; !time.isAfter(availableEndTime); time = time.plusMinutes(30)) {
-                Schedule schedule = dailySchedule.get(time);
-
-                if (schedule != null) {
-                    if (schedule.getStatus() != null && schedule.getStatus().startsWith("P")) {
-                        System.out.println("Cannot make time available for " + date + " " + time +
-                                " due to appointment with patient ID: " + schedule.getStatus());
-                        continue; // Skip to the next time slot
-                    }
-
-                    if ("Available".equals(schedule.getStatus())) {
-                        System.out.println("Slot already available: " + date + " " + time);
-                        continue;
-                    }
-
-                    // Set the slot to available
-                    setAvailable(doctorID, date, time);
-                    anySetAvailable = true;
-                }
+            int range = DoctorCalendar.rangeMask(availableStartTime, availableEndTime);
+            for (LocalTime time : DoctorCalendar.slotTimes(range & calendar.getAvailableMask(date))) {
+                System.out.println("Slot already available: " + date + " " + time);
             }
+        }
 
-            System.out.println("Checked and made available slots for " + date + " from " + availableStartTime + " to " + availableEndTime);
+        List<Schedule> skipped = new ArrayList<>();
+        int unblocked = changeRange(calendar, from, to, DoctorCalendar.BLOCKED, DoctorCalendar.AVAILABLE, skipped);
+        for (Schedule schedule : skipped) {
+            System.out.println("Cannot make time available for " + schedule.getDate() + " " + schedule.getTimeSlot() +
+                    " due to appointment with patient ID: " + schedule.getStatus());
         }
 
-        if (!anySetAvailable) {
+        if (unblocked == 0) {
             System.out.println("No time slots were made available in the specified range.");
         } else {
-            System.out.println("Time slot availability update completed for the specified range.");
+            System.out.println("Time slot availability update completed for the specified range (" + unblocked + " slots).");
         }
     }
 
     // Helper method to set individual slots to available
     public void setAvailable(String doctorID, LocalDate date, LocalTime timeSlot) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Map<LocalTime, Schedule> dailySchedule = doctorSchedule.get(date);
-            if (dailySchedule != null) {
-                Schedule schedule = dailySchedule.get(timeSlot);
-                if (schedule != null && "Blocked".equals(schedule.getStatus())) {
-                    schedule.setStatus("Available"); // Change status to Available
-                    saveSchedule(); // Save changes to CSV
-                } else if (schedule != null && "Available".equals(schedule.getStatus())) {
-                    System.out.println("Slot already available: " + date + " " + timeSlot);
-                }
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar != null) {
+            String status = calendar.getStatus(date, timeSlot);
+            if (DoctorCalendar.BLOCKED.equals(status)) {
+                recordChange(calendar, date, timeSlot, DoctorCalendar.BLOCKED, DoctorCalendar.AVAILABLE); // Change status to Available
+            } else if (DoctorCalendar.AVAILABLE.equals(status)) {
+                System.out.println("Slot already available: " + date + " " + timeSlot);
             }
         }
     }
@@ -441,66 +1009,47 @@ public class ScheduleService implements IScheduleService{
             }
         }
 
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
+        DoctorCalendar calendar = getCalendar(doctorID);
 
-        if (doctorSchedule == null) {
+        if (calendar == null) {
             System.out.println("No schedule found for doctor: " + doctorID);
             return;
         }
 
-        boolean anyBlocked = false;
-
+        // Report the slots that are already blocked, then block the rest of the range in one batch
+        LocalDateTime from = LocalDateTime.of(startDate, startTime);
+        LocalDateTime to = LocalDateTime.of(endDate, endTime).plusMinutes(DoctorCalendar.SLOT_MINUTES);
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
             LocalTime blockStartTime = date.equals(startDate) ? startTime : LocalTime.of(9, 0);
             LocalTime blockEndTime = date.equals(endDate) ? endTime : LocalTime.of(16, 30);
-
-            Map<LocalTime, Schedule> dailySchedule = doctorSchedule.get(date);
-            if (dailySchedule == null) continue;
-
-            for (LocalTime time = blockStartTime; !time.isAfter(blockEndTime); time = time.plusMinutes(30)) {
-                Schedule schedule = dailySchedule.get(time);
-
-                if (schedule != null) {
-                    if (schedule.getStatus() != null && schedule.getStatus().startsWith("P")) {
-                        // Print message if slot has a patient appointment
-                        System.out.println("Cannot block time for " + date + " " + time +
-                                " due to appointment with patient ID: " + schedule.getStatus());
-                        continue;  // Skip to the next time slot
-                    }
-
-                    if ("Blocked".equals(schedule.getStatus())) {
-                        System.out.println("Slot already blocked: " + date + " " + time);
-                        continue;
-                    }
-
-                    // Block the slot by marking it as unavailable
-                    setUnavailable(doctorID, date, time);
-                    anyBlocked = true;
-                }
+            int range = DoctorCalendar.rangeMask(blockStartTime, blockEndTime);
+            for (LocalTime time : DoctorCalendar.slotTimes(range & calendar.getBlockedMask(date))) {
+                System.out.println("Slot already blocked: " + date + " " + time);
             }
+        }
 
-            System.out.println("Checked and blocked slots for " + date + " from " + blockStartTime + " to " + blockEndTime);
+        List<Schedule> skipped = new ArrayList<>();
+        int blocked = changeRange(calendar, from, to, DoctorCalendar.AVAILABLE, DoctorCalendar.BLOCKED, skipped);
+        for (Schedule schedule : skipped) {
+            System.out.println("Cannot block time for " + schedule.getDate() + " " + schedule.getTimeSlot() +
+                    " due to appointment with patient ID: " + schedule.getStatus());
         }
 
-        if (!anyBlocked) {
+        if (blocked == 0) {
             System.out.println("No time slots were blocked in the specified range.");
         } else {
-            System.out.println("Time slot blocking completed for the specified range.");
+            System.out.println("Time slot blocking completed for the specified range (" + blocked + " slots).");
         }
     }
 
     public void setUnavailable(String doctorID, LocalDate date, LocalTime timeSlot) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-        if (doctorSchedule != null) {
-            Map<LocalTime, Schedule> dailySchedule = doctorSchedule.get(date);
-            if (dailySchedule != null) {
-                Schedule schedule = dailySchedule.get(timeSlot);
-                if (schedule != null && "Available".equals(schedule.getStatus())) {
-                    schedule.setStatus("Blocked"); // Change status to Blocked
-                    saveSchedule(); // Save changes to CSV
-                } else if (schedule != null && "Blocked".equals(schedule.getStatus())) {
-                    System.out.println("Slot already blocked: " + date + " " + timeSlot);
-                }
+        DoctorCalendar calendar = getCalendar(doctorID);
+        if (calendar != null) {
+            String status = calendar.getStatus(date, timeSlot);
+            if (DoctorCalendar.AVAILABLE.equals(status)) {
+                recordChange(calendar, date, timeSlot, DoctorCalendar.AVAILABLE, DoctorCalendar.BLOCKED); // Change status to Blocked
+            } else if (DoctorCalendar.BLOCKED.equals(status)) {
+                System.out.println("Slot already blocked: " + date + " " + timeSlot);
             }
         }
     }
@@ -513,7 +1062,7 @@ public class ScheduleService implements IScheduleService{
      */
 
     public void printSchedule(String doctorID) {
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
+        DoctorCalendar calendar = getCalendar(doctorID);
         Scanner scanner = new Scanner(System.in);
         LocalDate selectedDate = null;
 
@@ -550,19 +1099,12 @@ public class ScheduleService implements IScheduleService{
         }
 
         // Check if the doctor has a schedule
-        if (doctorSchedule != null && doctorSchedule.containsKey(selectedDate)) {
-            Map<LocalTime, Schedule> timeSlots = doctorSchedule.get(selectedDate);
-
-            // Sort time slots by time
-            Map<LocalTime, Schedule> sortedTimeSlots = new TreeMap<>(timeSlots);
-
+        if (calendar != null && calendar.hasDay(selectedDate)) {
             System.out.println("Schedule for Doctor ID: " + doctorID + " on " + selectedDate);
 
-            // Print the schedule for the selected date
-            for (Map.Entry<LocalTime, Schedule> timeEntry : sortedTimeSlots.entrySet()) {
-                LocalTime timeSlot = timeEntry.getKey();
-                Schedule schedule = timeEntry.getValue();
-                System.out.println("Time: " + timeSlot + " - Status: " + schedule.getStatus());
+            // Print the schedule for the selected date, slots are already in time order
+            for (LocalTime timeSlot : DoctorCalendar.slotTimes(calendar.getDefinedMask(selectedDate))) {
+                System.out.println("Time: " + timeSlot + " - Status: " + calendar.getStatus(selectedDate, timeSlot));
             }
         } else {
             System.out.println("No schedule found for Doctor ID: " + doctorID + " on " + selectedDate);
@@ -576,31 +1118,14 @@ public class ScheduleService implements IScheduleService{
      */
   
     public void printUpcomingAppointments(String doctorID) {
-        LocalDate today = LocalDate.now();
-        LocalTime currentTime = LocalTime.now();
         List<String> upcomingAppointments = new ArrayList<>();
 
-        Map<LocalDate, Map<LocalTime, Schedule>> doctorSchedule = scheduleMap.get(doctorID);
-
-        if (doctorSchedule != null) {
-            // Iterate through the schedule of the doctor
-            for (Map.Entry<LocalDate, Map<LocalTime, Schedule>> dateEntry : doctorSchedule.entrySet()) {
-                LocalDate date = dateEntry.getKey();
-
-                // Skip past dates
-                if (date.isAfter(today) || (date.equals(today) && !dateEntry.getValue().isEmpty())) {
-                    // Iterate through time slots for the given date
-                    for (Map.Entry<LocalTime, Schedule> timeEntry : dateEntry.getValue().entrySet()) {
-                        LocalTime timeSlot = timeEntry.getKey();
-                        Schedule schedule = timeEntry.getValue();
-                        String status = schedule.getStatus();
+        DoctorCalendar calendar = getCalendar(doctorID);
 
-                        // Check if appointment exists (not available or blocked)
-                        if (!"Available".equals(status) && !"Blocked".equals(status) && (date.isAfter(today) || (date.equals(today) && timeSlot.isAfter(currentTime)))) {
-                            upcomingAppointments.add("Patient ID: " + status + ", Date: " + date + ", Time Slot: " + timeSlot);
-                        }
-                    }
-                }
+        if (calendar != null) {
+            // Range scan over the bookings after now, which are already in date and time order
+            for (Schedule schedule : calendar.getUpcomingBookings(LocalDateTime.now(), Integer.MAX_VALUE)) {
+                upcomingAppointments.add("Patient ID: " + schedule.getStatus() + ", Date: " + schedule.getDate() + ", Time Slot: " + schedule.getTimeSlot());
             }
         } else {
             System.out.println("No schedule found for Doctor ID: " + doctorID);
@@ -619,30 +1144,75 @@ public class ScheduleService implements IScheduleService{
 
 
     /**
-     * Saves the current schedule state to the CSV file.
+     * Saves the current schedule state to the CSV file. Only slots that differ from the
+     * working-hours template are written. Rows of doctors whose calendar has not been
+     * loaded are copied over from the previous snapshot unchanged. The snapshot is
+     * written to a temporary file first and then moved over the old one, so a crash mid-write
+     * never leaves a truncated schedule behind.
+     *
+     * @return {@code true} if the snapshot was written successfully, {@code false} otherwise
      */
-    private void saveSchedule() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(SCHEDULE_FILE))) {
+    private boolean saveSchedule() {
+        Path scheduleFile = Paths.get(SCHEDULE_FILE);
+        Path tempFile = Paths.get(SCHEDULE_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
             writer.write("doctorID,date,time,status"); // CSV header line
             writer.newLine();
 
-            for (Map.Entry<String, Map<LocalDate, Map<LocalTime, Schedule>>> entry : scheduleMap.entrySet()) {
-                String doctorID = entry.getKey();
-                Map<LocalDate, Map<LocalTime, Schedule>> sortedDateSchedule = new TreeMap<>(entry.getValue());
-                for (Map.Entry<LocalDate, Map<LocalTime, Schedule>> dateEntry : sortedDateSchedule.entrySet()) {
-                    LocalDate date = dateEntry.getKey();
-                    Map<LocalTime, Schedule> sortedTimeSlots = new TreeMap<>(dateEntry.getValue());
-                    for (Map.Entry<LocalTime, Schedule> timeEntry : sortedTimeSlots.entrySet()) {
-                        LocalTime timeSlot = timeEntry.getKey();
-                        String status = timeEntry.getValue().getStatus();
-                        writer.write(doctorID + "," + date.format(DATE_FORMAT) + "," + timeSlot.format(TIME_FORMAT) + "," + status);
-                        writer.newLine();
+            if (Files.exists(scheduleFile)) {
+                try (BufferedReader br = Files.newBufferedReader(scheduleFile)) {
+                    String line;
+                    br.readLine(); // Skip header line
+                    while ((line = br.readLine()) != null) {
+                        int comma = line.indexOf(',');
+                        if (comma > 0 && !calendars.containsKey(line.substring(0, comma))) {
+                            writer.write(line); // Calendar not loaded, keep its rows as they are
+                            writer.newLine();
+                        }
                     }
                 }
             }
+
+            // Slots come out of each calendar already ordered by date and time
+            for (DoctorCalendar calendar : calendars.values()) {
+                for (Schedule schedule : calendar.getExceptionSlots()) {
+                    writer.write(toRecord(calendar.getDoctorID(), schedule.getDate(), schedule.getTimeSlot(), schedule.getStatus()));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        try {
+            Files.move(tempFile, scheduleFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (allCalendarsLoaded) {
+                saveSnapshot(); // Keep the binary snapshot in step with the new schedule file
+            }
+            return true;
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
+
+    /**
+     * The next free slot of one doctor, ordered by slot start and then by doctor ID.
+     */
+    private static final class SlotCursor implements Comparable<SlotCursor> {
+        private final DoctorCalendar calendar; // The calendar the slot belongs to
+        private final LocalDateTime next; // Start of the doctor's next free slot
+
+        private SlotCursor(DoctorCalendar calendar, LocalDateTime next) {
+            this.calendar = calendar;
+            this.next = next;
+        }
+
+        @Override
+        public int compareTo(SlotCursor other) {
+            int byTime = next.compareTo(other.next);
+            return byTime != 0 ? byTime : calendar.getDoctorID().compareTo(other.calendar.getDoctorID());
+        }
+    }
 }
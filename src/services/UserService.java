@@ -3,14 +3,21 @@ package services;
 import models.User;
 import enums.UserRole;
 import interfaces.IUserService;
+import stores.CsvReader;
+import stores.UserDirectory;
+import stores.UserJournal;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -20,93 +27,181 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
 
+/**
+ * Service class for user accounts: loading and saving User.csv, logging in and changing
+ * passwords.
+ * <p>
+ * Passwords are stored AES-encrypted as {@code ENC(...)}, so that an administrator can recover
+ * them. Each thread keeps its own initialised ciphers, since looking up the cipher provider and
+ * initialising the key dominate the cost of a single encryption. A login encrypts the password
+ * entered and compares the result with the stored ciphertext in constant time, so the stored
+ * password is never decrypted to check a login. Passwords still stored as plain text are
+ * encrypted once, when User.csv is loaded. Repeated failed logins are refused by a
+ * {@link LoginThrottle} before any password is encrypted.
+ * <p>
+ * Changes to users are appended to a journal keyed by hospital ID, so a password change writes
+ * one record. The journal is replayed on top of User.csv when users are loaded, and folded into
+ * a freshly sorted User.csv only when {@link #saveToCSV()} exports it. In memory, users are
+ * kept in a {@link UserDirectory}, sorted by hospital ID and partitioned by role.
+ */
 public class UserService implements IUserService {
-    private final Map<String, User> users;
+    private static final String USER_FILE = "data/User.csv"; // Sorted export of all users
+    private static final String JOURNAL_FILE = "data/user_journal.csv"; // Changes since the last export
+
+    private final UserDirectory users = new UserDirectory(); // Every user, sorted by hospital ID and partitioned by role
+    private final UserJournal journal = new UserJournal(JOURNAL_FILE); // Append-only log of user changes
+    private final LoginThrottle loginThrottle = new LoginThrottle(); // Refuses logins after too many failures
 
     private static final String ALGORITHM = "AES";
     // For encryption
     private static final String SECRET_KEY = "MySuperSecretKey";
+    private static final ThreadLocal<Cipher> ENCRYPT_CIPHER = ThreadLocal.withInitial(() -> newCipher(Cipher.ENCRYPT_MODE)); // Per-thread, reused across calls
+    private static final ThreadLocal<Cipher> DECRYPT_CIPHER = ThreadLocal.withInitial(() -> newCipher(Cipher.DECRYPT_MODE)); // Per-thread, reused across calls
 
     // There is already a database in the CSV file
     public UserService() {
-        users = new HashMap<>();
-        loadUsersFromCSV( "data/User.csv"); // Adjusted for relative path
+        loadUsers();
+        if (hasPlaintextPasswords()) {
+            encryptExistingPasswords(); // One-time migration of passwords stored as plain text
+        }
+    }
+
+    // Creates a cipher initialised with the password key, for one thread to reuse
+    private static Cipher newCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM));
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password cipher is not available", e);
+        }
+    }
+
+    // Runs a cipher of the current thread, discarding it if it fails so the next call starts from a clean state
+    private static byte[] runCipher(ThreadLocal<Cipher> cipher, byte[] input) throws GeneralSecurityException {
+        try {
+            return cipher.get().doFinal(input);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            cipher.remove();
+            throw e;
+        }
     }
 
     static String encryptPassword(String plainPassword) throws Exception {
-        SecretKey secretKey = new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM);
-        Cipher cipher = Cipher.getInstance(ALGORITHM);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-        byte[] encryptedBytes = cipher.doFinal(plainPassword.getBytes());
+        byte[] encryptedBytes = runCipher(ENCRYPT_CIPHER, plainPassword.getBytes());
         return Base64.getEncoder().encodeToString(encryptedBytes);
     }
 
+    /**
+     * Returns a password in the form it is stored in User.csv, for tools that write
+     * user records directly.
+     *
+     * @param plainPassword The password as typed by the user.
+     * @return The stored form of the password.
+     * @throws Exception If the password cannot be encrypted.
+     */
+    public static String encodePassword(String plainPassword) throws Exception {
+        return "ENC(" + encryptPassword(plainPassword) + ")";
+    }
+
     private static String decryptPassword(String encryptedPassword) throws Exception {
-        SecretKey secretKey = new SecretKeySpec(SECRET_KEY.getBytes(), ALGORITHM);
-        Cipher cipher = Cipher.getInstance(ALGORITHM);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey);
         byte[] decodedBytes = Base64.getDecoder().decode(encryptedPassword);
-        return new String(cipher.doFinal(decodedBytes));
+        return new String(runCipher(DECRYPT_CIPHER, decodedBytes));
+    }
+
+    private static boolean isEncrypted(String storedPassword) {
+        return storedPassword.startsWith("ENC(") && storedPassword.endsWith(")");
+    }
+
+    private boolean hasPlaintextPasswords() {
+        for (User user : users.getAll()) {
+            if (!isEncrypted(user.getPassword())) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    // Utility function to encrypt existing passwords (To be removed)
+    // Encrypts every password still stored as plain text, journaling only the users that change
     public void encryptExistingPasswords() {
         try {
-            for (User user : users.values()) {
+            for (User user : users.getAll()) {
                 String currentPassword = user.getPassword();
                 if (!currentPassword.startsWith("ENC(")) {
                     try {
                         String encryptedPassword = encryptPassword(currentPassword);
                         user.setPassword("ENC(" + encryptedPassword + ")");
+                        journalUser(user);
                     } catch (Exception e) {
                         System.out.println("Error encrypting password for user: " + user.getHospitalID());
                     }
                 }
             }
-            saveToCSV();
             System.out.println("Passwords have been encrypted successfully!");
         } catch (Exception e) {
             throw new RuntimeException("Error during password encryption process", e);
         }
     }
 
+    // Loads User.csv, then replays the changes journaled since it was last exported
+    private void loadUsers() {
+        loadUsersFromCSV(USER_FILE);
+        journal.replay(record -> {
+            String hospitalID = record.getTrimmed(1);
+            if (record.fieldEquals(0, UserJournal.PUT) && record.size() == 4) {
+                users.put(new User(hospitalID, record.getTrimmed(2), record.getEnum(3, UserRole.class)));
+            } else if (record.fieldEquals(0, UserJournal.DELETE)) {
+                users.remove(hospitalID);
+            } else {
+                System.out.println("Skipping malformed user journal record: " + record);
+            }
+        });
+    }
+
+    private void journalUser(User user) {
+        journal.put(user.getHospitalID(), user.getPassword(), user.getRole().toString());
+    }
+
     // Load users from CSV
     private void loadUsersFromCSV(String filePath) {
-        String line;
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            while ((line = br.readLine()) != null) {
-                String[] userData = line.split(",");
-                if (userData.length == 3) {
-                    String hospitalID = userData[0].trim();
-                    String password = userData[1].trim();
-                    String roleString = userData[2].trim();
-                    if (roleString.equalsIgnoreCase("role")) continue;
-
-                    UserRole role = UserRole.valueOf(roleString.toUpperCase());
-                    users.put(hospitalID, new User(hospitalID, password, role));
+        try {
+            CsvReader.read(filePath, false, userData -> {
+                if (userData.size() == 3) {
+                    if (userData.fieldEqualsIgnoreCase(2, "role")) return; // Header line
+
+                    String hospitalID = userData.getTrimmed(0);
+                    String password = userData.getTrimmed(1);
+                    UserRole role = userData.getEnum(2, UserRole.class);
+                    users.put(new User(hospitalID, password, role));
                 } else {
-                    System.out.println("Skipping malformed line in CSV: " + line);
+                    System.out.println("Skipping malformed line in CSV: " + userData);
                 }
-            }
+            });
         } catch (IOException e) {
             System.out.println("Error reading CSV file: " + e.getMessage());
         }
     }
 
-    // Save users to CSV include sorting
-    public void saveToCSV() {
-        try (FileWriter writer = new FileWriter("data/User.csv")) {
+    /**
+     * Exports every user to User.csv, sorted by hospital ID, and empties the journal. The file
+     * is written beside User.csv and moved over it, so a failed export leaves the old file and
+     * the journal in place.
+     */
+    public synchronized void saveToCSV() {
+        Path target = Paths.get(USER_FILE);
+        Path temporary = Paths.get(USER_FILE + ".tmp");
+        try (FileWriter writer = new FileWriter(temporary.toFile())) {
             writer.write("hospitalID,password,role\n");
-            users.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey()) // Sort by hospitalID
-                    .forEach(entry -> {
-                        try {
-                            User user = entry.getValue();
-                            writer.write(user.getHospitalID() + "," + user.getPassword() + "," + user.getRole() + "\n");
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
+            for (User user : users.getAll()) { // Already in hospitalID order
+                writer.write(user.getHospitalID() + "," + user.getPassword() + "," + user.getRole() + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing to CSV file: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate(); // Every journaled change is now in User.csv
         } catch (IOException e) {
             System.out.println("Error writing to CSV file: " + e.getMessage());
         }
@@ -121,23 +216,46 @@ public class UserService implements IUserService {
      */
     @Override
     public boolean login(String hospitalID, String password) {
+        // Refuse locked-out accounts before doing any cipher work
+        if (!loginThrottle.allowAttempt(hospitalID)) {
+            System.out.println("Too many failed login attempts. Please try again later.");
+            return false;
+        }
         User user = users.get(hospitalID);
-        if (user != null) {
-            try {
-                String storedPassword = user.getPassword();
-                if (storedPassword.startsWith("ENC(") && storedPassword.endsWith(")")) {
-                    // Decrypt the encrypted password
-                    String decryptedPassword = decryptPassword(storedPassword.substring(4, storedPassword.length() - 1));
-                    return decryptedPassword.equals(password);
-                } else {
-                    // If the password is not encrypted, compare directly
-                    return storedPassword.equals(password);
-                }
-            } catch (Exception e) {
-                System.out.println("Error during password verification: " + e.getMessage());
+        boolean authenticated = user != null && checkPassword(user, password);
+        if (authenticated) {
+            loginThrottle.recordSuccess(hospitalID);
+        } else {
+            loginThrottle.recordFailure(hospitalID, user != null);
+        }
+        return authenticated;
+    }
+
+    private boolean checkPassword(User user, String password) {
+        try {
+            String storedPassword = user.getPassword();
+            if (isEncrypted(storedPassword)) {
+                // Encrypt the password entered and compare ciphertexts; the stored one is never decrypted
+                byte[] expected = Base64.getDecoder().decode(storedPassword.substring(4, storedPassword.length() - 1));
+                byte[] actual = runCipher(ENCRYPT_CIPHER, password.getBytes());
+                return MessageDigest.isEqual(expected, actual);
+            } else {
+                // If the password is not encrypted, compare directly
+                return MessageDigest.isEqual(storedPassword.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
             }
+        } catch (Exception e) {
+            System.out.println("Error during password verification: " + e.getMessage());
+            return false;
         }
-        return false;
+    }
+
+    /**
+     * Returns the throttle that limits failed logins, for its metrics.
+     *
+     * @return the login throttle of this service
+     */
+    public LoginThrottle getLoginThrottle() {
+        return loginThrottle;
     }
 
     /**
@@ -159,8 +277,8 @@ public class UserService implements IUserService {
                     if (decryptedPassword.equals(oldPassword)) {
                         String newEncryptedPassword = encryptPassword(newPassword);
                         user.setPassword("ENC(" + newEncryptedPassword + ")");
-                        users.put(hospitalID, user);
-                        saveToCSV();
+                        users.put(user);
+                        journalUser(user); // Writes this one record, not the whole file
                         System.out.println("Password changed successfully!");
                         return true;
                     }
@@ -175,7 +293,7 @@ public class UserService implements IUserService {
 
     public void reloadUserData() {
         users.clear(); // Clear existing data
-        loadUsersFromCSV("data/User.csv"); // Reload data from CSV
+        loadUsers(); // Reload data from CSV and the journal
     }
 
     /**
@@ -207,49 +325,71 @@ public class UserService implements IUserService {
      * @return True if the update is successful, false otherwise.
      */
     public boolean updateUser(User user) {
-        if (users.containsKey(user.getHospitalID())) {
-            users.put(user.getHospitalID(), user);
+        if (users.contains(user.getHospitalID())) {
+            users.put(user);
             return true;
         }
         return false;
     }
 
     public void addUser(User user) {
-        users.put(user.getHospitalID(), user);
-        saveUsersToCSV();
+        users.put(user);
+        journalUser(user);
     }
 
     public boolean removeUser(String hospitalID) {
         if (users.remove(hospitalID) != null) {
-            saveUsersToCSV();
+            journal.delete(hospitalID);
             return true;
         }
         return false;
     }
 
-    private void saveUsersToCSV() {
-        try (FileWriter writer = new FileWriter("data/User.csv")) {
-            for (User user : users.values()) {
-                writer.write(user.getHospitalID() + "," + user.getPassword() + "," + user.getRole() + "\n");
-            }
-        } catch (IOException e) {
-            System.out.println("Error writing to CSV file: " + e.getMessage());
-        }
+    /**
+     * Retrieves the users with the specified role, in hospital ID order.
+     *
+     * @param role The role of the users, or null for every role.
+     * @return A read-only view of the users.
+     */
+    public Collection<User> getUsersByRole(UserRole role) {
+        return users.getByRole(role);
     }
-    private void writeUsersToCSV() {
-        try (FileWriter writer = new FileWriter("data/User.csv")) {
-            // Write header, if needed
-            writer.write("hospitalID,password,role\n");
-    
-            // Write each user's details to the CSV
-            for (User user : users.values()) {
-                writer.write(user.getHospitalID() + "," + user.getPassword() + "," + user.getRole() + "\n");
-            }
-    
-            System.out.println("User data saved successfully to user.csv.");
-        } catch (IOException e) {
-            System.out.println("Error writing to CSV file: " + e.getMessage());
-        }
+
+    /**
+     * Retrieves the users with the specified role whose hospital IDs start with a prefix, in
+     * hospital ID order.
+     *
+     * @param role   The role of the users, or null for every role.
+     * @param prefix The start of the hospital IDs.
+     * @return A read-only view of the matching users.
+     */
+    public Collection<User> getUsersWithPrefix(UserRole role, String prefix) {
+        return users.getByPrefix(role, prefix);
+    }
+
+    /**
+     * Retrieves the users with the specified role whose hospital IDs sort between two IDs,
+     * both included, such as patients P1000 to P1999.
+     *
+     * @param role   The role of the users, or null for every role.
+     * @param fromID The first hospital ID of the range.
+     * @param toID   The last hospital ID of the range.
+     * @return A read-only view of the matching users.
+     */
+    public Collection<User> getUsersInRange(UserRole role, String fromID, String toID) {
+        return users.getInRange(role, fromID, toID);
+    }
+
+    /**
+     * Retrieves one page of the users with the specified role, in hospital ID order.
+     *
+     * @param role     The role of the users, or null for every role.
+     * @param afterID  The last hospital ID of the previous page, or null for the first page.
+     * @param pageSize The maximum number of users to return.
+     * @return The users of the page.
+     */
+    public List<User> getUsersPage(UserRole role, String afterID, int pageSize) {
+        return users.getPage(role, afterID, pageSize);
     }
 
     public String getPlaintextPassword(String userId) {
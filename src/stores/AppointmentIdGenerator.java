@@ -0,0 +1,152 @@
+package stores;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code AppointmentIdGenerator} class hands out appointment IDs that are unique and
+ * increase with creation time, so ordering IDs numerically orders appointments by when they
+ * were made.
+ * <p>
+ * IDs are reserved in blocks: before any ID of a block is handed out, the end of the block is
+ * written to the sequence file. After a restart, allocation resumes at the last reserved end,
+ * so an ID is never reused even if the process stopped halfway through a block. Handing out an
+ * ID inside a reserved block is a single atomic increment. If the sequence file cannot be
+ * written, no ID of the new block is handed out.
+ * <p>
+ * The first time the generator runs, it starts above the largest numeric ID already present in
+ * the appointment and appointment request files.
+ */
+public class AppointmentIdGenerator {
+    private static final String SEQUENCE_FILE = "data/appointment_id.seq"; // Path to the reserved block end
+    private static final String APPOINTMENT_FILE = "data/appointment.csv"; // Path to the appointments CSV file
+    private static final String APPOINTMENT_REQUEST_FILE = "data/appointment_request.csv"; // Path to the request CSV file
+    private static final int BLOCK_SIZE = 100; // Number of IDs reserved with each write of the sequence file
+    private static AppointmentIdGenerator instance; // Process-wide shared instance
+
+    private final Path sequenceFile; // File holding the end of the reserved block
+    private final AtomicLong nextId; // The next ID to hand out
+    private volatile long reservedUntil; // IDs below this value are reserved in the sequence file
+
+    /**
+     * Returns the shared ID generator, creating it on first use.
+     *
+     * @return the shared ID generator
+     */
+    public static synchronized AppointmentIdGenerator getInstance() {
+        if (instance == null) {
+            instance = new AppointmentIdGenerator(SEQUENCE_FILE, APPOINTMENT_FILE, APPOINTMENT_REQUEST_FILE);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs an {@code AppointmentIdGenerator} that resumes from the specified sequence file,
+     * or from the largest ID in the specified data files if there is no sequence file yet.
+     *
+     * @param sequenceFile the path to the sequence file
+     * @param dataFiles the CSV files whose first column holds existing IDs
+     */
+    public AppointmentIdGenerator(String sequenceFile, String... dataFiles) {
+        this.sequenceFile = Paths.get(sequenceFile);
+        long start = readReservedEnd();
+        if (start < 0) {
+            start = 1;
+            for (String dataFile : dataFiles) {
+                start = Math.max(start, maxId(Paths.get(dataFile)) + 1);
+            }
+        }
+        this.nextId = new AtomicLong(start);
+        this.reservedUntil = start;
+    }
+
+    /**
+     * Returns a new appointment ID, larger than every ID handed out before it.
+     *
+     * @return the new appointment ID
+     * @throws UncheckedIOException if the block holding the ID cannot be saved to the sequence file
+     */
+    public String nextId() {
+        long id = nextId.getAndIncrement();
+        if (id >= reservedUntil) {
+            try {
+                reserve(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not reserve appointment ID " + id, e);
+            }
+        }
+        return Long.toString(id);
+    }
+
+    // Extends the reserved range past the specified ID; the range only grows once the new end is saved
+    private synchronized void reserve(long id) throws IOException {
+        long end = reservedUntil;
+        while (id >= end) {
+            end += BLOCK_SIZE;
+        }
+        if (end == reservedUntil) {
+            return; // Another thread already reserved a block covering this ID
+        }
+        writeReservedEnd(end);
+        reservedUntil = end;
+    }
+
+    // Reads the end of the last reserved block, or -1 if there is no usable sequence file
+    private long readReservedEnd() {
+        if (!Files.exists(sequenceFile)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(Files.readString(sequenceFile).trim());
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error reading appointment ID sequence: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Writes the end of the reserved block, replacing the old sequence file atomically
+    private void writeReservedEnd(long end) throws IOException {
+        Path tempFile = sequenceFile.resolveSibling(sequenceFile.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+                writer.write(Long.toString(end));
+                writer.newLine();
+            }
+            Files.move(tempFile, sequenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving appointment ID sequence: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Returns the largest numeric ID in the first column of a CSV file, or 0 if there is none
+    private static long maxId(Path dataFile) {
+        long max = 0;
+        if (!Files.exists(dataFile)) {
+            return max;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(dataFile)) {
+            String line;
+            reader.readLine(); // Skip header line
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                String id = (comma < 0 ? line : line.substring(0, comma)).replace("\"", "").trim();
+                try {
+                    max = Math.max(max, Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    // Not a numeric ID; it cannot collide with generated ones
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading existing appointment IDs: " + e.getMessage());
+        }
+        return max;
+    }
+}
@@ -0,0 +1,225 @@
+package stores;
+
+import models.AppointmentRequest;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * The {@code AppointmentRequestStore} class keeps all appointment requests in memory after
+ * reading the request file once.
+ * <p>
+ * Pending requests are also indexed per doctor, ordered by requested date and time, so a
+ * doctor's inbox costs time proportional to that doctor's pending requests.
+ * <p>
+ * The file is updated incrementally: a new or changed request is appended as a new row, and
+ * when the file is read the last row of a request wins. Once superseded rows outnumber the
+ * live ones, the file is rewritten with one row per request.
+ */
+public class AppointmentRequestStore {
+    private static final String APPOINTMENT_REQUEST_FILE = "data/appointment_request.csv"; // Path to the request CSV file
+    private static final String HEADER = "RequestID,DoctorID,PatientID,RequestedDate,RequestedTimeSlot,Status";
+    private static final String PENDING = "Pending"; // Status of a request awaiting the doctor's decision
+    private static final Comparator<AppointmentRequest> BY_REQUESTED_TIME = Comparator
+            .comparing(AppointmentRequest::getRequestedDate)
+            .thenComparing(AppointmentRequest::getRequestedTimeSlot)
+            .thenComparing(AppointmentRequest::getRequestId);
+    private static AppointmentRequestStore instance; // Process-wide shared instance
+
+    private final Path requestFile; // The request CSV file
+    private final Map<String, AppointmentRequest> requests = new LinkedHashMap<>(); // Request ID -> request, in file order
+    private final Map<String, NavigableSet<AppointmentRequest>> pendingByDoctor = new HashMap<>(); // Doctor ID -> pending requests by requested time
+    private int supersededRows; // Rows in the file that a later row of the same request replaces
+
+    /**
+     * Returns the shared request store, loading it on first use.
+     *
+     * @return the shared request store
+     */
+    public static synchronized AppointmentRequestStore getInstance() {
+        if (instance == null) {
+            instance = new AppointmentRequestStore(APPOINTMENT_REQUEST_FILE);
+        }
+        return instance;
+    }
+
+    /**
+     * Constructs an {@code AppointmentRequestStore} and loads the specified file.
+     *
+     * @param requestFile the path to the request CSV file
+     */
+    public AppointmentRequestStore(String requestFile) {
+        this.requestFile = Paths.get(requestFile);
+        load();
+    }
+
+    /**
+     * Returns the request with the specified ID.
+     *
+     * @param requestId the ID of the request
+     * @return the request, or {@code null} if there is none with that ID
+     */
+    public synchronized AppointmentRequest getRequest(String requestId) {
+        return requests.get(requestId);
+    }
+
+    /**
+     * Returns all requests, in the order they were first made.
+     *
+     * @return a list of all requests
+     */
+    public synchronized List<AppointmentRequest> getAllRequests() {
+        return new ArrayList<>(requests.values());
+    }
+
+    /**
+     * Returns the pending requests of all doctors.
+     *
+     * @return a list of pending requests, ordered by requested date and time for each doctor
+     */
+    public synchronized List<AppointmentRequest> getPendingRequests() {
+        List<AppointmentRequest> pending = new ArrayList<>();
+        for (NavigableSet<AppointmentRequest> queue : pendingByDoctor.values()) {
+            pending.addAll(queue);
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the pending requests of one doctor, ordered by requested date and time.
+     *
+     * @param doctorId the ID of the doctor
+     * @return a list of the doctor's pending requests
+     */
+    public synchronized List<AppointmentRequest> getPendingRequests(String doctorId) {
+        NavigableSet<AppointmentRequest> queue = pendingByDoctor.get(doctorId);
+        return queue == null ? new ArrayList<>() : new ArrayList<>(queue);
+    }
+
+    /**
+     * Stores a new or changed request and appends it to the request file.
+     *
+     * @param request the request to store
+     */
+    public synchronized void save(AppointmentRequest request) {
+        saveAll(List.of(request));
+    }
+
+    /**
+     * Stores several new or changed requests and appends them to the request file with a
+     * single write.
+     *
+     * @param changed the requests to store
+     */
+    public synchronized void saveAll(List<AppointmentRequest> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (AppointmentRequest request : changed) {
+            index(request);
+        }
+        if (supersededRows > requests.size()) {
+            rewrite();
+            return;
+        }
+        boolean newLineNeeded = !endsWithNewLine(); // Older writers leave the last row unterminated
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(requestFile.toFile(), true))) {
+            if (newLineNeeded) {
+                writer.newLine();
+            }
+            for (AppointmentRequest request : changed) {
+                writer.write(request.toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving appointment request: " + e.getMessage());
+        }
+    }
+
+    // Adds a request to the indexes, replacing the previous version of it if there is one
+    private void index(AppointmentRequest request) {
+        AppointmentRequest previous = requests.put(request.getRequestId(), request);
+        if (previous != null) {
+            supersededRows++;
+            NavigableSet<AppointmentRequest> queue = pendingByDoctor.get(previous.getDoctorId());
+            if (queue != null) {
+                queue.remove(previous); // Requested date and time never change, so the ordering still finds it
+                if (queue.isEmpty()) {
+                    pendingByDoctor.remove(previous.getDoctorId());
+                }
+            }
+        }
+        if (PENDING.equals(request.getStatus())) {
+            pendingByDoctor.computeIfAbsent(request.getDoctorId(), k -> new TreeSet<>(BY_REQUESTED_TIME)).add(request);
+        }
+    }
+
+    // Whether the request file is empty or its last row is terminated by a new line
+    private boolean endsWithNewLine() {
+        if (!Files.exists(requestFile)) {
+            return true;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(requestFile.toFile(), "r")) {
+            if (file.length() == 0) {
+                return true;
+            }
+            file.seek(file.length() - 1);
+            return file.read() == '\n';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Reads the request file row by row; the last row of each request wins
+    private void load() {
+        if (!Files.exists(requestFile)) {
+            return;
+        }
+        try {
+            CsvReader.read(requestFile.toString(), true, row -> {
+                AppointmentRequest request = AppointmentRequest.fromRow(row);
+                if (request != null) {
+                    index(request);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error reading appointment requests: " + e.getMessage());
+        }
+    }
+
+    // Rewrites the request file with one row per request, replacing the old file atomically
+    private void rewrite() {
+        Path tempFile = requestFile.resolveSibling(requestFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (AppointmentRequest request : requests.values()) {
+                writer.write(request.toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving appointment requests: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tempFile, requestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            supersededRows = 0;
+        } catch (IOException e) {
+            System.err.println("Error replacing appointment request file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package stores;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code BinarySnapshot} class stores a compact binary copy of the state held in a CSV
+ * file, so that it can be loaded with one sequential read instead of parsing text.
+ * <p>
+ * The CSV file stays the primary copy and the export format; the snapshot is only a cache of
+ * it. Each snapshot records the format version, the size and modification time of the CSV
+ * file it was written from, and a CRC-32 checksum. A snapshot is ignored, and the caller falls
+ * back to the CSV file, when it is missing, was written by another format version, is
+ * corrupt, or the CSV file has changed since, for example because it was edited by hand.
+ * <p>
+ * Snapshots can be turned off by starting the application with
+ * {@code -Dhms.binarySnapshots=false}.
+ * <p>
+ * Layout: magic number, format version, CSV size, CSV modification time, payload length,
+ * payload, checksum of everything before it.
+ */
+public class BinarySnapshot {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("hms.binarySnapshots", "true")); // Whether snapshots are read and written
+    private static final int MAGIC = 0x484D5342; // "HMSB"
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4; // Magic, version, CSV size, CSV time, payload length
+    private static final int CHECKSUM_BYTES = 8; // Trailing CRC-32, stored as a long
+
+    /**
+     * Writes the payload of a snapshot.
+     */
+    public interface PayloadWriter {
+        /**
+         * Writes the state to be stored in the snapshot.
+         *
+         * @param out the stream receiving the payload
+         * @throws IOException if the payload cannot be written
+         */
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the state just saved to a CSV file, replacing any previous snapshot
+     * atomically. Must be called after the CSV file has been written, so the recorded size and
+     * modification time match it.
+     *
+     * @param snapshotFile the path to the snapshot file
+     * @param sourceFile the path to the CSV file the snapshot mirrors
+     * @param version the version of the payload format
+     * @param payload the writer of the payload
+     * @return {@code true} if the snapshot was written, {@code false} otherwise
+     */
+    public static boolean write(String snapshotFile, String sourceFile, int version, PayloadWriter payload) {
+        if (!ENABLED) {
+            return false;
+        }
+        Path snapshot = Paths.get(snapshotFile);
+        Path tempFile = Paths.get(snapshotFile + ".tmp");
+        try {
+            BasicFileAttributes source = Files.readAttributes(Paths.get(sourceFile), BasicFileAttributes.class);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            out.writeLong(source.size());
+            out.writeLong(source.lastModifiedTime().toMillis());
+            out.writeInt(0); // Payload length, filled in below
+            payload.write(out);
+            out.flush();
+            byte[] content = bytes.toByteArray();
+            ByteBuffer.wrap(content).putInt(HEADER_BYTES - 4, content.length - HEADER_BYTES);
+            CRC32 checksum = new CRC32();
+            checksum.update(content);
+            byte[] file = Arrays.copyOf(content, content.length + CHECKSUM_BYTES);
+            ByteBuffer.wrap(file).putLong(content.length, checksum.getValue());
+            Files.write(tempFile, file);
+            Files.move(tempFile, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot " + snapshotFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Opens a snapshot for reading if it is valid and still matches its CSV file.
+     *
+     * @param snapshotFile the path to the snapshot file
+     * @param sourceFile the path to the CSV file the snapshot mirrors
+     * @param version the version of the payload format the caller reads
+     * @return a stream positioned at the start of the payload, or {@code null} if the CSV file
+     *         has to be read instead
+     */
+    public static DataInputStream open(String snapshotFile, String sourceFile, int version) {
+        Path snapshot = Paths.get(snapshotFile);
+        if (!ENABLED || !Files.exists(snapshot) || !Files.exists(Paths.get(sourceFile))) {
+            return null;
+        }
+        try {
+            byte[] content = Files.readAllBytes(snapshot);
+            if (content.length < HEADER_BYTES + CHECKSUM_BYTES) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.wrap(content);
+            BasicFileAttributes source = Files.readAttributes(Paths.get(sourceFile), BasicFileAttributes.class);
+            if (header.getInt() != MAGIC || header.getInt() != version
+                    || header.getLong() != source.size()
+                    || header.getLong() != source.lastModifiedTime().toMillis()
+                    || header.getInt() != content.length - HEADER_BYTES - CHECKSUM_BYTES) {
+                return null; // Other format, or the CSV file changed since the snapshot was written
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(content, 0, content.length - CHECKSUM_BYTES);
+            if (checksum.getValue() != ByteBuffer.wrap(content, content.length - CHECKSUM_BYTES, CHECKSUM_BYTES).getLong()) {
+                System.err.println("Ignoring corrupt snapshot " + snapshotFile);
+                return null;
+            }
+            return new DataInputStream(new ByteArrayInputStream(content, HEADER_BYTES, content.length - HEADER_BYTES - CHECKSUM_BYTES));
+        } catch (IOException e) {
+            System.err.println("Error reading snapshot " + snapshotFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
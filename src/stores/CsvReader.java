@@ -0,0 +1,189 @@
+package stores;
+
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * The {@code CsvReader} class reads CSV records one at a time, following RFC 4180: fields
+ * are separated by commas, a field may be enclosed in double quotes, and a quoted field may
+ * contain commas, line breaks and doubled quotes standing for one quote.
+ * <p>
+ * Input is read in blocks into a reusable buffer and each record is decoded into a single
+ * {@link CsvRow} that is reused for the next record, so reading a file allocates no objects per
+ * line or per field. Callers extract only the fields they need, in the type they need.
+ * Blank lines are skipped, and both {@code \n} and {@code \r\n} line endings are accepted.
+ */
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192; // Characters read from the input at a time
+
+    /**
+     * Receives each record of a file read with {@link CsvReader#read(String, boolean, RowHandler)}.
+     * The row is reused for the next record and must not be kept.
+     */
+    public interface RowHandler {
+        /**
+         * Handles one record.
+         *
+         * @param row the record
+         */
+        void handle(CsvRow row);
+    }
+
+    private final Reader input; // Source of the CSV text
+    private final char[] buffer = new char[BUFFER_SIZE]; // Block of input not yet decoded
+    private final CsvRow row = new CsvRow(); // The current record
+    private int position; // Next character to decode in the buffer
+    private int limit; // Number of valid characters in the buffer
+    private boolean endOfInput; // Whether the input has been read to the end
+
+    /**
+     * Constructs a {@code CsvReader} over the specified input.
+     *
+     * @param input the CSV text to read
+     */
+    public CsvReader(Reader input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads every record of a CSV file and passes each one to the handler.
+     *
+     * @param file the path to the CSV file
+     * @param skipHeader whether the first record is a header to be skipped
+     * @param handler the handler that receives each record
+     * @throws IOException if the file cannot be read
+     */
+    public static void read(String file, boolean skipHeader, RowHandler handler) throws IOException {
+        try (CsvReader reader = new CsvReader(new FileReader(file))) {
+            if (skipHeader) {
+                reader.next();
+            }
+            while (reader.next()) {
+                handler.handle(reader.getRow());
+            }
+        }
+    }
+
+    /**
+     * Decodes a single line of CSV text.
+     *
+     * @param line the CSV text
+     * @return the decoded record, with no fields if the line is blank
+     */
+    public static CsvRow parse(String line) {
+        CsvReader reader = new CsvReader(new StringReader(line));
+        try {
+            reader.next();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // A StringReader does not fail
+        }
+        return reader.getRow();
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return {@code true} if a record was read, {@code false} at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    public boolean next() throws IOException {
+        row.clear();
+        boolean inRecord = false; // Whether any character of the record has been read
+        boolean quoted = false; // Inside a quoted field
+        boolean quoteInQuoted = false; // Just read a quote inside a quoted field
+        boolean fieldStart = true; // Nothing of the current field has been read yet
+        while (true) {
+            if (position == limit && !fill()) {
+                if (!inRecord) {
+                    return false;
+                }
+                row.endField(); // Last record without a line break
+                return true;
+            }
+            char c = buffer[position++];
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                    quoteInQuoted = true;
+                } else {
+                    row.append(c);
+                }
+                continue;
+            }
+            if (quoteInQuoted) {
+                quoteInQuoted = false;
+                if (c == '"') {
+                    row.append('"'); // Doubled quote stands for one quote
+                    quoted = true;
+                    continue;
+                }
+            }
+            switch (c) {
+                case ',':
+                    row.endField();
+                    inRecord = true;
+                    fieldStart = true;
+                    break;
+                case '\n':
+                    if (inRecord) {
+                        row.endField();
+                        return true;
+                    }
+                    break; // Blank line
+                case '\r':
+                    break; // Part of a \r\n line ending
+                case '"':
+                    if (fieldStart) {
+                        quoted = true;
+                    } else {
+                        row.append(c); // A quote inside an unquoted field is kept as it is
+                    }
+                    inRecord = true;
+                    fieldStart = false;
+                    break;
+                default:
+                    row.append(c);
+                    inRecord = true;
+                    fieldStart = false;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the current record. It is replaced by the next call to {@link #next()}.
+     *
+     * @return the current record
+     */
+    public CsvRow getRow() {
+        return row;
+    }
+
+    /**
+     * Closes the underlying input.
+     *
+     * @throws IOException if the input cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    // Reads the next block of input into the buffer
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int read = input.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            endOfInput = true;
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
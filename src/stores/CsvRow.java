@@ -0,0 +1,325 @@
+package stores;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * The {@code CsvRow} class gives access to the fields of the record a {@link CsvReader} is
+ * positioned on.
+ * <p>
+ * Fields are kept as ranges of one character buffer that is reused for every record, so a row
+ * is only valid until the reader moves on; copy out what needs to be kept. Numbers, dates,
+ * times and enum constants are parsed straight from the buffer, and fields can be compared
+ * without creating a {@code String} for them.
+ */
+public class CsvRow {
+    private char[] chars = new char[256]; // Unquoted characters of all fields of the record
+    private int length; // Number of characters used in the buffer
+    private int[] fieldEnds = new int[16]; // End of each field in the buffer; a field starts where the previous one ends
+    private int fieldCount; // Number of fields in the record
+
+    CsvRow() {
+    }
+
+    /**
+     * Returns the number of fields in the record.
+     *
+     * @return the number of fields
+     */
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns a field exactly as it appears in the record, without surrounding quotes.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the field
+     */
+    public String getString(int index) {
+        return new String(chars, start(index), end(index) - start(index));
+    }
+
+    /**
+     * Returns a field with leading and trailing whitespace removed.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the trimmed field
+     */
+    public String getTrimmed(int index) {
+        int start = trimmedStart(index);
+        return new String(chars, start, trimmedEnd(index, start) - start);
+    }
+
+    /**
+     * Returns whether a field is empty or contains only whitespace.
+     *
+     * @param index the position of the field, starting from 0
+     * @return {@code true} if the field is blank
+     */
+    public boolean isBlank(int index) {
+        return trimmedStart(index) == end(index);
+    }
+
+    /**
+     * Returns whether a field, with surrounding whitespace removed, equals the specified text.
+     *
+     * @param index the position of the field, starting from 0
+     * @param text the text to compare with
+     * @return {@code true} if the field equals the text
+     */
+    public boolean fieldEquals(int index, String text) {
+        return regionEquals(index, text, false);
+    }
+
+    /**
+     * Returns whether a field, with surrounding whitespace removed, equals the specified text,
+     * ignoring case.
+     *
+     * @param index the position of the field, starting from 0
+     * @param text the text to compare with
+     * @return {@code true} if the field equals the text, ignoring case
+     */
+    public boolean fieldEqualsIgnoreCase(int index, String text) {
+        return regionEquals(index, text, true);
+    }
+
+    /**
+     * Parses a field as an {@code int}.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a whole number that fits in an {@code int}
+     */
+    public int getInt(int index) {
+        long value = getLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getTrimmed(index) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a {@code long}.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a whole number that fits in a {@code long}
+     */
+    public long getLong(int index) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        boolean negative = start < end && chars[start] == '-';
+        int i = start < end && (chars[start] == '-' || chars[start] == '+') ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + getTrimmed(index) + "\"");
+        }
+        long value = 0; // Accumulated negatively, so Long.MIN_VALUE can be represented
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || value < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("For input string: \"" + getTrimmed(index) + "\"");
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            throw new NumberFormatException("For input string: \"" + getTrimmed(index) + "\"");
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Parses a field as a {@code double}.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the value of the field
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double getDouble(int index) {
+        return Double.parseDouble(getTrimmed(index));
+    }
+
+    /**
+     * Parses a field as a date in {@code yyyy-MM-dd} format.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the date in the field
+     * @throws DateTimeParseException if the field is not a valid date
+     */
+    public LocalDate getDate(int index) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        if (end - start != 10 || chars[start + 4] != '-' || chars[start + 7] != '-') {
+            throw new DateTimeParseException("Text could not be parsed as a date", getTrimmed(index), 0);
+        }
+        try {
+            return LocalDate.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2));
+        } catch (RuntimeException e) {
+            throw new DateTimeParseException("Text could not be parsed as a date", getTrimmed(index), 0, e);
+        }
+    }
+
+    /**
+     * Parses a field as a time in {@code HH:mm} format.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the time in the field
+     * @throws DateTimeParseException if the field is not a valid time
+     */
+    public LocalTime getTime(int index) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        if (end - start != 5 || chars[start + 2] != ':') {
+            throw new DateTimeParseException("Text could not be parsed as a time", getTrimmed(index), 0);
+        }
+        try {
+            return LocalTime.of(digits(start, 2), digits(start + 3, 2));
+        } catch (RuntimeException e) {
+            throw new DateTimeParseException("Text could not be parsed as a time", getTrimmed(index), 0, e);
+        }
+    }
+
+    /**
+     * Parses a field as a date and time in ISO-8601 format, such as {@code 2024-11-21T12:00}.
+     *
+     * @param index the position of the field, starting from 0
+     * @return the date and time in the field
+     * @throws DateTimeParseException if the field is not a valid date and time
+     */
+    public LocalDateTime getDateTime(int index) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        if (end - start != 16 || chars[start + 10] != 'T') {
+            return LocalDateTime.parse(getTrimmed(index)); // Seconds or other less common forms
+        }
+        try {
+            return LocalDateTime.of(digits(start, 4), digits(start + 5, 2), digits(start + 8, 2),
+                    digits(start + 11, 2), digits(start + 14, 2));
+        } catch (RuntimeException e) {
+            return LocalDateTime.parse(getTrimmed(index)); // Reports the error the usual way
+        }
+    }
+
+    /**
+     * Returns the enum constant whose name matches a field, ignoring case and surrounding
+     * whitespace.
+     *
+     * @param index the position of the field, starting from 0
+     * @param type the enum type
+     * @param <E> the enum type
+     * @return the matching constant
+     * @throws IllegalArgumentException if no constant has that name
+     */
+    public <E extends Enum<E>> E getEnum(int index, Class<E> type) {
+        for (E constant : type.getEnumConstants()) {
+            if (regionEquals(index, constant.name(), true)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " + type.getName() + "." + getTrimmed(index));
+    }
+
+    /**
+     * Returns the record as comma-separated text, for use in messages.
+     *
+     * @return the fields of the record joined by commas
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(length + fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(chars, start(i), end(i) - start(i));
+        }
+        return text.toString();
+    }
+
+    // Empties the row before the next record is read into it
+    void clear() {
+        length = 0;
+        fieldCount = 0;
+    }
+
+    // Adds one character to the field being read
+    void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    // Ends the field being read
+    void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldEnds[fieldCount++] = length;
+    }
+
+    private int start(int index) {
+        checkIndex(index);
+        return index == 0 ? 0 : fieldEnds[index - 1];
+    }
+
+    private int end(int index) {
+        checkIndex(index);
+        return fieldEnds[index];
+    }
+
+    private int trimmedStart(int index) {
+        int start = start(index);
+        int end = end(index);
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimmedEnd(int index, int trimmedStart) {
+        int end = end(index);
+        while (end > trimmedStart && chars[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private boolean regionEquals(int index, String text, boolean ignoreCase) {
+        int start = trimmedStart(index);
+        int end = trimmedEnd(index, start);
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char a = chars[start + i];
+            char b = text.charAt(i);
+            if (a != b && (!ignoreCase || Character.toUpperCase(a) != Character.toUpperCase(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Parses a fixed number of decimal digits starting at a position in the buffer
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a digit: " + chars[i]);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of a record with " + fieldCount + " fields");
+        }
+    }
+}
@@ -4,7 +4,6 @@ import models.Inventory;
 import enums.MedicationStatus;
 import enums.ReplenishmentStatus;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
@@ -35,39 +34,32 @@ public class InventoryDataStore {
      * and the replenishment status.
      */
     private void loadInventoryFromCSV() {
-        String line = "";
-        try (BufferedReader br = new BufferedReader(new FileReader("data/inventory.csv"))) {
-            boolean isFirstLine = true; // Flag to skip the header
-
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false; // Skip the header line
-                    continue; // Move to the next line
-                }
-
-                String[] values = line.split(",");
-                if (values.length >= 4) {
-                    String medicineName = values[0].trim();
-                    int currentStock = Integer.parseInt(values[1].trim());
-                    int lowLevelAlert = Integer.parseInt(values[2].trim());
+        try (CsvReader reader = new CsvReader(new FileReader("data/inventory.csv"))) {
+            reader.next(); // Skip the header line
+            while (reader.next()) {
+                CsvRow values = reader.getRow();
+                if (values.size() >= 4) {
+                    String medicineName = values.getTrimmed(0);
+                    int currentStock = values.getInt(1);
+                    int lowLevelAlert = values.getInt(2);
                     ReplenishmentStatus replenishmentStatus;
 
                     try {
-                        replenishmentStatus = ReplenishmentStatus.valueOf(values[3].trim().toUpperCase());
+                        replenishmentStatus = values.getEnum(3, ReplenishmentStatus.class);
                     } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid ReplenishmentStatus in line: " + line + ". Defaulting to PENDING.");
+                        System.out.println("Invalid ReplenishmentStatus in line: " + values + ". Defaulting to PENDING.");
                         replenishmentStatus = ReplenishmentStatus.PENDING; // Default value
                     }
 
                     inventoryList.add(new Inventory(medicineName, currentStock, lowLevelAlert, replenishmentStatus));
                 } else {
-                    System.out.println("Skipping invalid line: " + line);
+                    System.out.println("Skipping invalid line: " + values);
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
         } catch (NumberFormatException e) {
-            System.out.println("Error parsing number from line: " + line);
+            System.out.println("Error parsing number from line: " + e.getMessage());
         }
     }
 
@@ -0,0 +1,311 @@
+package stores;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The {@code ScheduleFileReader} class reads the schedule snapshot ({@code doctorID,date,time,status})
+ * by memory-mapping the file and parsing each row straight from its bytes.
+ * <p>
+ * Dates in {@code yyyy-MM-dd} form are turned into epoch days and times in {@code HH:mm} form
+ * into slot indices with plain arithmetic, so no {@code LocalDate}, {@code LocalTime} or
+ * formatter is involved. The doctor ID of a row is compared in place and only turned into a
+ * {@code String} when it differs from the previous row's, and the common statuses "Available"
+ * and "Blocked" are matched against shared constants. Rows that do not have the fixed layout,
+ * for example because a field is quoted, are decoded with {@link CsvReader} instead.
+ */
+public class ScheduleFileReader {
+    private static final long WINDOW_SIZE = 1L << 30; // Largest part of the file mapped at once
+    private static final int FIRST_SLOT_MINUTES = 9 * 60; // Start of the first slot of the day, in minutes
+    private static final int SLOT_MINUTES = 30; // Length of a slot in minutes
+    private static final int SLOTS_PER_DAY = 16; // Number of slots per day
+    private static final long DAYS_0000_TO_1970 = 719528; // Days from 0000-01-01 to 1970-01-01
+    private static final String AVAILABLE = "Available"; // Status of a free slot
+    private static final String BLOCKED = "Blocked"; // Status of a slot blocked by the doctor
+
+    /**
+     * Receives each valid row of the schedule file.
+     */
+    public interface SlotHandler {
+        /**
+         * Handles one slot.
+         *
+         * @param doctorID the ID of the doctor owning the slot
+         * @param epochDay the date of the slot, as a count of days since 1970-01-01
+         * @param slot the slot index (0-15)
+         * @param status "Available", "Blocked" or the ID of the patient who booked the slot
+         */
+        void slot(String doctorID, long epochDay, int slot, String status);
+    }
+
+    private final String doctorFilter; // Only rows of this doctor are parsed, or all rows if null
+    private final byte[] doctorFilterBytes; // The filtered doctor ID, encoded for comparison
+    private final SlotHandler handler; // Receives each parsed slot
+    private byte[] scratch = new byte[64]; // Copy of the field being decoded
+    private String lastDoctorID; // Doctor ID of the previous row, reused while rows share it
+    private byte[] lastDoctorBytes = new byte[0]; // The previous row's doctor ID, encoded
+    private int rows; // Number of rows passed to the handler
+
+    private ScheduleFileReader(String doctorFilter, SlotHandler handler) {
+        this.doctorFilter = doctorFilter;
+        this.doctorFilterBytes = doctorFilter == null ? null : doctorFilter.getBytes(StandardCharsets.UTF_8);
+        this.handler = handler;
+    }
+
+    /**
+     * Reads the rows of a schedule file, skipping its header line.
+     *
+     * @param file the path to the schedule file
+     * @param doctorID the ID of the only doctor whose rows to read, or {@code null} for every doctor
+     * @param handler the handler that receives each valid row
+     * @return the number of rows passed to the handler
+     * @throws IOException if the file cannot be read
+     */
+    public static int read(Path file, String doctorID, SlotHandler handler) throws IOException {
+        ScheduleFileReader reader = new ScheduleFileReader(doctorID, handler);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            boolean header = true;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int consumed = reader.parseWindow(window, (int) length, header, last);
+                if (consumed == 0) {
+                    throw new IOException("Schedule row longer than " + WINDOW_SIZE + " bytes");
+                }
+                header = false;
+                position += consumed;
+            }
+        }
+        return reader.rows;
+    }
+
+    // Parses the complete lines of a mapped window and returns how many bytes they took
+    private int parseWindow(MappedByteBuffer window, int length, boolean header, boolean last) {
+        int lineStart = 0;
+        if (header) {
+            lineStart = nextLine(window, 0, length);
+        }
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == length && !last) {
+                return lineStart; // Unfinished line, picked up by the next window
+            }
+            int end = lineEnd > lineStart && window.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (end > lineStart) {
+                parseLine(window, lineStart, end);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return length;
+    }
+
+    // Parses one line between two positions of the window, line break excluded
+    private void parseLine(MappedByteBuffer window, int start, int end) {
+        int firstComma = indexOf(window, ',', start, end);
+        if (firstComma < 0) {
+            System.out.println("Skipping malformed line in schedule: " + text(window, start, end));
+            return;
+        }
+        if (doctorFilterBytes != null && !matches(window, start, firstComma, doctorFilterBytes)
+                && window.get(start) != '"') {
+            return; // Another doctor's row
+        }
+        // Fixed layout: doctorID,yyyy-MM-dd,HH:mm,status
+        int date = firstComma + 1;
+        int time = date + 11;
+        int status = time + 6;
+        if (status >= end || window.get(date + 10) != ',' || window.get(time + 5) != ','
+                || window.get(date + 4) != '-' || window.get(date + 7) != '-' || window.get(time + 2) != ':'
+                || indexOf(window, ',', status, end) >= 0 || indexOf(window, '"', start, end) >= 0) {
+            parseSlow(window, start, end);
+            return;
+        }
+        int year = digits(window, date, 4);
+        int month = digits(window, date + 5, 2);
+        int day = digits(window, date + 8, 2);
+        int hour = digits(window, time, 2);
+        int minute = digits(window, time + 3, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            System.out.println("Error parsing date or time in line: " + text(window, start, end));
+            return;
+        }
+        int slot = slotIndex(hour * 60 + minute);
+        if (slot < 0) {
+            System.out.println("Time is not a valid slot in line: " + text(window, start, end));
+            return;
+        }
+        deliver(window, start, firstComma, epochDay(year, month, day), slot, status(window, status, end));
+    }
+
+    // Decodes a row that does not have the fixed layout through the general CSV reader
+    private void parseSlow(MappedByteBuffer window, int start, int end) {
+        String line = text(window, start, end);
+        CsvRow row = CsvReader.parse(line);
+        if (row.size() != 4 || row.isBlank(3)) {
+            System.out.println("Skipping malformed line in schedule: " + line);
+            return;
+        }
+        if (doctorFilter != null && !row.fieldEquals(0, doctorFilter)) {
+            return;
+        }
+        try {
+            long epochDay = row.getDate(1).toEpochDay();
+            LocalTime time = row.getTime(2);
+            int slot = slotIndex(time.getHour() * 60 + time.getMinute());
+            if (slot < 0) {
+                System.out.println("Time is not a valid slot in line: " + line);
+                return;
+            }
+            String status = row.fieldEquals(3, AVAILABLE) ? AVAILABLE
+                    : row.fieldEquals(3, BLOCKED) ? BLOCKED : row.getString(3);
+            rows++;
+            handler.slot(row.getString(0), epochDay, slot, status);
+        } catch (DateTimeParseException e) {
+            System.out.println("Error parsing date or time in line: " + line);
+        }
+    }
+
+    // Passes a parsed row to the handler, reusing the previous doctor ID string when it matches
+    private void deliver(MappedByteBuffer window, int start, int end, long epochDay, int slot, String status) {
+        String doctorID;
+        if (doctorFilter != null) {
+            doctorID = doctorFilter;
+        } else {
+            if (lastDoctorID == null || !matches(window, start, end, lastDoctorBytes)) {
+                lastDoctorBytes = new byte[end - start];
+                window.get(start, lastDoctorBytes);
+                lastDoctorID = new String(lastDoctorBytes, StandardCharsets.UTF_8);
+            }
+            doctorID = lastDoctorID;
+        }
+        rows++;
+        handler.slot(doctorID, epochDay, slot, status);
+    }
+
+    // Returns the status field, sharing the constant strings for the common statuses
+    private String status(MappedByteBuffer window, int start, int end) {
+        if (matchesAscii(window, start, end, AVAILABLE)) {
+            return AVAILABLE;
+        }
+        if (matchesAscii(window, start, end, BLOCKED)) {
+            return BLOCKED;
+        }
+        return text(window, start, end); // Patient ID of a booked slot
+    }
+
+    // Returns the slot index of a time given in minutes since midnight, or -1 if it is off the grid
+    private static int slotIndex(int minutes) {
+        int offset = minutes - FIRST_SLOT_MINUTES;
+        if (offset < 0 || offset % SLOT_MINUTES != 0 || offset / SLOT_MINUTES >= SLOTS_PER_DAY) {
+            return -1;
+        }
+        return offset / SLOT_MINUTES;
+    }
+
+    // Same result as LocalDate.of(year, month, day).toEpochDay() for a valid date
+    private static long epochDay(long year, int month, int day) {
+        long total = 365 * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static boolean isLeapYear(long year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // Parses a fixed number of ASCII digits, or returns -1 if any of them is not a digit
+    private static int digits(MappedByteBuffer window, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = window.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(MappedByteBuffer window, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (window.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int nextLine(MappedByteBuffer window, int from, int length) {
+        int newLine = indexOf(window, '\n', from, length);
+        return newLine < 0 ? length : newLine + 1;
+    }
+
+    private static boolean matches(MappedByteBuffer window, int start, int end, byte[] bytes) {
+        if (end - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (window.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesAscii(MappedByteBuffer window, int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (window.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decodes part of the window into a string
+    private String text(MappedByteBuffer window, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,197 @@
+package stores;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code ScheduleJournal} class is an append-only write-ahead log for schedule slot changes.
+ * Each change is stored as one CSV record in the same format as the schedule snapshot
+ * ({@code doctorID,date,time,status}), so replaying the journal in order on top of the
+ * snapshot always yields the latest state of every slot.
+ * <p>
+ * A crash while a record is being appended can leave the last line cut short. Such a line,
+ * and any other malformed record, is skipped when the journal is read, and the cut-short line
+ * is dropped from the file before the next append, so that it is neither completed by the
+ * line break of that append nor joined onto its record.
+ */
+public class ScheduleJournal {
+
+    private final Path journalPath; // Path to the journal file
+    private BufferedWriter writer; // Writer kept open in append mode between changes
+    private int pendingRecords; // Number of records appended since the last truncate
+
+    /**
+     * Constructs a {@code ScheduleJournal} backed by the specified file.
+     *
+     * @param journalFile the path to the journal file
+     */
+    public ScheduleJournal(String journalFile) {
+        this.journalPath = Paths.get(journalFile);
+        this.pendingRecords = readRecords().size();
+    }
+
+    /**
+     * Appends a single slot change to the journal and flushes it to disk.
+     *
+     * @param record the CSV record describing the slot change
+     */
+    public synchronized void append(String record) {
+        try {
+            openWriter();
+            writer.write(record);
+            writer.newLine();
+            writer.flush();
+            pendingRecords++;
+        } catch (IOException e) {
+            System.err.println("Error appending to schedule journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a batch of slot changes to the journal with a single write and flush.
+     *
+     * @param records the CSV records describing the slot changes, in order
+     */
+    public synchronized void appendAll(List<String> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            openWriter();
+            for (String record : records) {
+                writer.write(record);
+                writer.newLine();
+            }
+            writer.flush();
+            pendingRecords += records.size();
+        } catch (IOException e) {
+            System.err.println("Error appending to schedule journal: " + e.getMessage());
+        }
+    }
+
+    // Opens the writer in append mode, first dropping a last line that a crash cut short
+    private void openWriter() throws IOException {
+        if (writer != null) {
+            return;
+        }
+        if (!endsWithLineBreak()) {
+            try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+                long end = file.length();
+                do {
+                    end--;
+                    file.seek(end);
+                } while (end > 0 && file.read() != '\n');
+                file.setLength(end == 0 ? 0 : end + 1); // Keep everything up to the last complete line
+            }
+        }
+        writer = new BufferedWriter(new FileWriter(journalPath.toFile(), true));
+    }
+
+    /**
+     * Reads every well-formed record currently stored in the journal, in the order they were
+     * appended. A record has four non-empty fields ({@code doctorID,date,time,status}); a last
+     * line without a line break was cut short by a crash and is skipped like any malformed one.
+     *
+     * @return a list of CSV records
+     */
+    public synchronized List<String> readRecords() {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(journalPath)) {
+            return records;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalPath)) {
+            String line;
+            boolean lastLineKept = false; // Whether the line read last was added as a record
+            while ((line = reader.readLine()) != null) {
+                lastLineKept = isWellFormed(line);
+                if (lastLineKept) {
+                    records.add(line);
+                } else if (!line.isEmpty()) {
+                    System.err.println("Skipping malformed schedule journal record: " + line);
+                }
+            }
+            if (lastLineKept && !endsWithLineBreak()) {
+                String cutShort = records.remove(records.size() - 1); // Its status may have lost characters
+                System.err.println("Skipping incomplete schedule journal record: " + cutShort);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading schedule journal: " + e.getMessage());
+        }
+        return records;
+    }
+
+    // Whether a line has the four non-empty fields of a record
+    private static boolean isWellFormed(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 4) {
+            return false;
+        }
+        for (String field : fields) {
+            if (field.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Whether the journal is missing, empty or ends with a complete line
+    private boolean endsWithLineBreak() {
+        if (!Files.exists(journalPath)) {
+            return true;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "r")) {
+            if (file.length() == 0) {
+                return true;
+            }
+            file.seek(file.length() - 1);
+            return file.read() == '\n';
+        } catch (IOException e) {
+            System.err.println("Error reading schedule journal: " + e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Empties the journal once its records have been folded into a snapshot.
+     */
+    public synchronized void truncate() {
+        close();
+        try {
+            Files.deleteIfExists(journalPath);
+            pendingRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Error truncating schedule journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of records appended since the journal was last truncated.
+     *
+     * @return the number of pending records
+     */
+    public synchronized int getPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * Closes the underlying writer. The journal is reopened on the next append.
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing schedule journal: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package stores;
 
+import enums.UserRole;
 import models.Staff;
 import java.io.*;
 import java.util.*;
 
 /**
  * The StaffDataStore class is responsible for managing staff data,
- * including loading from and writing to a CSV file.
+ * including loading from and writing to a CSV file. Staff are kept
+ * sorted by staff ID and partitioned by role, so listing and writing
+ * them needs no sorting, and a page of one role visits only that role.
  */
 public class StaffDataStore {
 
-    private Map<String, Staff> staffList = new HashMap<>();
+    private final NavigableMap<String, Staff> staffList = new TreeMap<>(); // Staff ID -> staff, in staff ID order
+    private final Map<UserRole, NavigableMap<String, Staff>> staffByRole = new EnumMap<>(UserRole.class); // Role -> its staff by staff ID
 
     /**
      * Loads staff data from a CSV file and populates the staff list.
@@ -19,41 +23,23 @@ public class StaffDataStore {
      * @throws IOException If an error occurs while reading the file.
      */
     public void loadStaffFromCSV(String csvFilePath) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(csvFilePath));
-        String line;
-        boolean skipHeader = true; // Skip the header row
-        while ((line = reader.readLine()) != null) {
-            if (skipHeader) {
-                skipHeader = false;
-                continue;
-            }
-            String[] fields = line.split(",");
-            if (fields.length != 5) {
-                System.err.println("Skipping malformed line: " + line);
-                continue;
+        CsvReader.read(csvFilePath, true, fields -> { // Skip the header row
+            if (fields.size() != 5) {
+                System.err.println("Skipping malformed line: " + fields);
+                return;
             }
             try {
-                String id = fields[0];
-                String name = fields[1];
-                String role = fields[2];
-                String gender = fields[3];
-                int age = Integer.parseInt(fields[4].trim());
+                String id = fields.getString(0);
+                String name = fields.getString(1);
+                String role = fields.getString(2);
+                String gender = fields.getString(3);
+                int age = fields.getInt(4);
                 Staff staff = new Staff(id, name, role, gender, age);
-                staffList.put(id, staff);
+                addOrUpdateStaff(staff);
             } catch (NumberFormatException e) {
-                System.err.println("Skipping line with invalid age: " + line);
+                System.err.println("Skipping line with invalid age: " + fields);
             }
-        }
-        reader.close();
-    }
-
-    public void sortStaffList() {
-        List<Staff> sortedStaff = new ArrayList<>(staffList.values());
-        sortedStaff.sort(Comparator.comparing(Staff::getId)); // Ensures sorting by staffID
-        staffList = new LinkedHashMap<>(); // Preserve insertion order
-        for (Staff staff : sortedStaff) {
-            staffList.put(staff.getId(), staff);
-        }
+        });
     }
 
     /**
@@ -63,7 +49,6 @@ public class StaffDataStore {
      * @throws IOException If an error occurs while writing the file.
      */
     public void writeStaffToCSV(String csvFilePath) throws IOException {
-        sortStaffList();
         BufferedWriter writer = new BufferedWriter(new FileWriter(csvFilePath));
         writer.write("staffID,name,role,gender,age"); // Add header
         writer.newLine();
@@ -82,7 +67,12 @@ public class StaffDataStore {
      * @param staff The Staff object to be added or updated.
      */
     public void addOrUpdateStaff(Staff staff) {
+        removeStaff(staff.getId()); // The role may have changed
         staffList.put(staff.getId(), staff);
+        UserRole role = roleOf(staff);
+        if (role != null) {
+            staffByRole.computeIfAbsent(role, r -> new TreeMap<>()).put(staff.getId(), staff);
+        }
     }
 
     /**
@@ -91,16 +81,51 @@ public class StaffDataStore {
      * @param staffId The ID of the staff member to be removed.
      */
     public void removeStaff(String staffId) {
-        staffList.remove(staffId);
+        Staff removed = staffList.remove(staffId);
+        UserRole role = removed == null ? null : roleOf(removed);
+        if (role != null && staffByRole.containsKey(role)) {
+            staffByRole.get(role).remove(staffId);
+        }
+    }
+
+    // The role of a staff member, or null if its role column is not a known role
+    private static UserRole roleOf(Staff staff) {
+        try {
+            return UserRole.valueOf(staff.getRole().trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves one page of staff members in staff ID order, starting after
+     * the last staff ID of the previous page.
+     *
+     * @param role         The role to list, or null for all staff.
+     * @param afterStaffId The last staff ID of the previous page, or null for the first page.
+     * @param pageSize     The maximum number of staff members to return.
+     * @return The staff members of the page.
+     */
+    public List<Staff> getStaffPage(UserRole role, String afterStaffId, int pageSize) {
+        NavigableMap<String, Staff> staff = role == null ? staffList : staffByRole.getOrDefault(role, Collections.emptyNavigableMap());
+        Collection<Staff> remaining = (afterStaffId == null ? staff : staff.tailMap(afterStaffId, false)).values();
+        List<Staff> page = new ArrayList<>();
+        for (Staff member : remaining) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            page.add(member);
+        }
+        return page;
     }
 
     /**
      * Retrieves the list of all staff members.
      *
-     * @return A map of staff IDs to Staff objects.
+     * @return A read-only map of staff IDs to Staff objects, in staff ID order.
      */
     public Map<String, Staff> getStaffList() {
-        return staffList;
+        return Collections.unmodifiableMap(staffList);
     }
 }
 
@@ -0,0 +1,179 @@
+package stores;
+
+import enums.UserRole;
+import models.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The {@code UserDirectory} class holds every user account in memory, sorted by hospital ID
+ * and partitioned by role.
+ * <p>
+ * Each role has its own sorted map, so listing the users of one role, or those of a role whose
+ * IDs start with a prefix or fall in a range, walks only the matching entries and takes time
+ * proportional to the result. Hospital IDs are compared as strings, so a range such as
+ * {@code P1000} to {@code P1999} covers the IDs that sort between the two. Pages are addressed
+ * by the last ID of the previous page rather than by position, so fetching a page also costs
+ * only its own size. Wherever a role is expected, {@code null} means every role.
+ */
+public class UserDirectory {
+    private final NavigableMap<String, User> users = new TreeMap<>(); // Hospital ID -> user, for every role
+    private final Map<UserRole, NavigableMap<String, User>> usersByRole = new EnumMap<>(UserRole.class); // Role -> its users by hospital ID
+
+    /**
+     * Constructs an empty {@code UserDirectory}.
+     */
+    public UserDirectory() {
+        for (UserRole role : UserRole.values()) {
+            usersByRole.put(role, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Returns the user with the specified hospital ID.
+     *
+     * @param hospitalID the hospital ID of the user
+     * @return the user, or null if there is none
+     */
+    public User get(String hospitalID) {
+        return users.get(hospitalID);
+    }
+
+    /**
+     * Returns whether a user with the specified hospital ID exists.
+     *
+     * @param hospitalID the hospital ID of the user
+     * @return true if the user exists
+     */
+    public boolean contains(String hospitalID) {
+        return users.containsKey(hospitalID);
+    }
+
+    /**
+     * Adds a user, or replaces the user with the same hospital ID, moving it to the partition
+     * of its role.
+     *
+     * @param user the user to add
+     * @return the user that was replaced, or null if there was none
+     */
+    public User put(User user) {
+        User previous = users.put(user.getHospitalID(), user);
+        if (previous != null && previous.getRole() != null) {
+            usersByRole.get(previous.getRole()).remove(previous.getHospitalID());
+        }
+        if (user.getRole() != null) {
+            usersByRole.get(user.getRole()).put(user.getHospitalID(), user);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the user with the specified hospital ID.
+     *
+     * @param hospitalID the hospital ID of the user
+     * @return the user that was removed, or null if there was none
+     */
+    public User remove(String hospitalID) {
+        User removed = users.remove(hospitalID);
+        if (removed != null && removed.getRole() != null) {
+            usersByRole.get(removed.getRole()).remove(hospitalID);
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every user.
+     */
+    public void clear() {
+        users.clear();
+        usersByRole.values().forEach(Map::clear);
+    }
+
+    /**
+     * Returns the number of users.
+     *
+     * @return the number of users
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Returns every user, in hospital ID order.
+     *
+     * @return a read-only view of all users
+     */
+    public Collection<User> getAll() {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
+    /**
+     * Returns the users of a role, in hospital ID order.
+     *
+     * @param role the role, or null for every role
+     * @return a read-only view of the users of the role
+     */
+    public Collection<User> getByRole(UserRole role) {
+        return Collections.unmodifiableCollection(partition(role).values());
+    }
+
+    /**
+     * Returns the users of a role whose hospital IDs start with the prefix, in hospital ID order.
+     *
+     * @param role   the role, or null for every role
+     * @param prefix the start of the hospital IDs
+     * @return a read-only view of the matching users
+     */
+    public Collection<User> getByPrefix(UserRole role, String prefix) {
+        return Collections.unmodifiableCollection(
+                partition(role).subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Returns the users of a role whose hospital IDs sort between two IDs, both included, in
+     * hospital ID order.
+     *
+     * @param role   the role, or null for every role
+     * @param fromID the first hospital ID of the range
+     * @param toID   the last hospital ID of the range
+     * @return a read-only view of the matching users
+     */
+    public Collection<User> getInRange(UserRole role, String fromID, String toID) {
+        if (fromID.compareTo(toID) > 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(partition(role).subMap(fromID, true, toID, true).values());
+    }
+
+    /**
+     * Returns one page of the users of a role, in hospital ID order.
+     *
+     * @param role     the role, or null for every role
+     * @param afterID  the last hospital ID of the previous page, or null for the first page
+     * @param pageSize the maximum number of users to return
+     * @return the users of the page
+     */
+    public List<User> getPage(UserRole role, String afterID, int pageSize) {
+        NavigableMap<String, User> partition = partition(role);
+        Collection<User> remaining = (afterID == null ? partition : partition.tailMap(afterID, false)).values();
+        List<User> page = new ArrayList<>();
+        for (User user : remaining) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+
+    private NavigableMap<String, User> partition(UserRole role) {
+        return role == null ? users : usersByRole.get(role);
+    }
+}
@@ -0,0 +1,108 @@
+package stores;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The {@code UserJournal} class is an append-only log of changes to user accounts. Each change
+ * is one CSV record keyed by hospital ID: {@code PUT,hospitalID,password,role} adds or replaces
+ * a user and {@code DELETE,hospitalID} removes one. Replaying the journal in order on top of
+ * {@code User.csv} always yields the latest set of users, so a password change writes one
+ * record instead of the whole file.
+ */
+public class UserJournal {
+    public static final String PUT = "PUT"; // Record that adds or replaces a user
+    public static final String DELETE = "DELETE"; // Record that removes a user
+
+    private final Path journalPath; // Path to the journal file
+    private BufferedWriter writer; // Writer kept open in append mode between changes
+
+    /**
+     * Constructs a {@code UserJournal} backed by the specified file.
+     *
+     * @param journalFile the path to the journal file
+     */
+    public UserJournal(String journalFile) {
+        this.journalPath = Paths.get(journalFile);
+    }
+
+    /**
+     * Records that a user was added or changed, and flushes it to disk.
+     *
+     * @param hospitalID the hospital ID of the user
+     * @param password   the password as stored in User.csv
+     * @param role       the role of the user
+     */
+    public void put(String hospitalID, String password, String role) {
+        append(PUT + "," + hospitalID + "," + password + "," + role);
+    }
+
+    /**
+     * Records that a user was removed, and flushes it to disk.
+     *
+     * @param hospitalID the hospital ID of the user
+     */
+    public void delete(String hospitalID) {
+        append(DELETE + "," + hospitalID);
+    }
+
+    private synchronized void append(String record) {
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new FileWriter(journalPath.toFile(), true));
+            }
+            writer.write(record);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error appending to user journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Passes every record currently stored in the journal to the handler, in the order they
+     * were appended. The row is reused for the next record and must not be kept.
+     *
+     * @param handler the handler called with each record
+     */
+    public synchronized void replay(CsvReader.RowHandler handler) {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        try {
+            CsvReader.read(journalPath.toString(), false, handler);
+        } catch (IOException e) {
+            System.err.println("Error reading user journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Empties the journal once its records have been folded into User.csv.
+     */
+    public synchronized void truncate() {
+        close();
+        try {
+            Files.deleteIfExists(journalPath);
+        } catch (IOException e) {
+            System.err.println("Error truncating user journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the underlying writer. The journal is reopened on the next append.
+     */
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing user journal: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
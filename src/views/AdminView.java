@@ -69,6 +69,40 @@ public class AdminView implements IAdministratorView {
         }
     }
 
+    /**
+     * Prompts for the role to list in the staff list.
+     *
+     * @return The role entered, or null to list all staff.
+     */
+    public UserRole getStaffRoleFilter() {
+        while (true) {
+            System.out.print("Enter role to list (Doctor/Pharmacist/Administrator, blank for all): ");
+            String role = scanner.nextLine().trim();
+            if (role.isEmpty()) {
+                return null;
+            }
+            try {
+                UserRole userRole = UserRole.valueOf(role.toUpperCase());
+                if (userRole != UserRole.PATIENT) {
+                    return userRole;
+                }
+            } catch (IllegalArgumentException e) {
+                // Fall through to the error message
+            }
+            System.out.println("Invalid role. Please try again.");
+        }
+    }
+
+    /**
+     * Asks whether to show the next page of a list.
+     *
+     * @return True to show the next page, false to stop.
+     */
+    public boolean askForNextPage() {
+        System.out.print("Press Enter for the next page, or type 'q' to return: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     // Implementing displayAppointments from AdministratorView
     @Override
     public void displayAppointments(List<Appointment> appointments) {
@@ -8,11 +8,9 @@ import java.util.List;
 import models.Appointment;
 import models.Patient;
 //import services.*;
+import services.ApplicationContext;
 import services.AppointmentService;
 import services.DoctorService;
-import services.MedicalRecordService;
-import services.UserService;
-import services.ScheduleService;
 import models.Doctor;
 
 public class AllocatedAppointmentView implements iPatientView {
@@ -48,8 +46,8 @@ public class AllocatedAppointmentView implements iPatientView {
     public void display(Patient patient) {
         //System.out.println("Displaying allocated appointments for Patient ID: " + patient.getHospitalID());
 
-        // Get the list of all scheduled appointments from the AppointmentService
-        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
+        // Get the patient's appointments from the AppointmentService
+        List<Appointment> appointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
         // Define a DateTimeFormatter for a 24-hour format
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy, HH:mm");
@@ -80,8 +78,8 @@ public class AllocatedAppointmentView implements iPatientView {
     public void display2(Patient patient) {
         //System.out.println("Displaying allocated appointments for Patient ID: " + patient.getHospitalID());
 
-        // Get the list of all scheduled appointments from the AppointmentService
-        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
+        // Get the patient's appointments from the AppointmentService
+        List<Appointment> appointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
         // Define a DateTimeFormatter for a 24-hour format
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy, HH:mm");
@@ -90,10 +88,7 @@ public class AllocatedAppointmentView implements iPatientView {
         boolean found = false;
         for (Appointment appointment : appointments) {
             // Check if the appointment is allocated to the patient and is pending
-            UserService userService=new UserService();
-            MedicalRecordService medicalRecordService=new MedicalRecordService();
-            ScheduleService scheduleService=new services.ScheduleService();
-            DoctorService doctorService=new services.DoctorService(userService, scheduleService, medicalRecordService,appointmentService);
+            DoctorService doctorService=ApplicationContext.getInstance().getDoctorService();
             Doctor doctor=doctorService.getDoctorById(appointment.getDoctorId());
             if (appointment.getPatientId().equals(patient.getHospitalID()) && (appointment.getStatus() == AppointmentStatus.CONFIRMED)) {
                 found = true;
@@ -41,8 +41,8 @@ public class AppointmentHistoryView implements iPatientView {
     public void display(Patient patient) {
         //System.out.println("Displaying appointment history for Patient ID: " + patient.getHospitalID());
 
-        // Get the list of all scheduled appointments from AppointmentService
-        List<Appointment> appointments = appointmentService.viewScheduledAppointments();
+        // Get the patient's appointments from AppointmentService
+        List<Appointment> appointments = appointmentService.getAppointmentsByPatient(patient.getHospitalID());
 
         // Define a DateTimeFormatter for a 24-hour format
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd MMM yyyy, HH:mm"); // Example: 24 Oct 2024, 14:30
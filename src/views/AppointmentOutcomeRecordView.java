@@ -1,131 +1,62 @@
 package views;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
+import java.util.List;
 
-public class AppointmentOutcomeRecordView {
-    private final String csvFilePath = "data/appointment.csv"; // Adjust path as needed
-
-    public void loadAndPrintAppointments() {
-        //System.out.println("Loading appointments from: " + csvFilePath);
-
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFilePath))) {
-            String line = br.readLine(); // Read the header line
-            if (line != null) {
-                //System.out.println("Headers: " + line); // Print headers for reference
-            }
-
-            while ((line = br.readLine()) != null) {
-                String[] fields = line.split(",");
-
-                if (fields.length == 10) { // Ensure we have all 10 fields
-                    //System.out.println("\nAppointment Details:");
-                    if(!fields[4].trim().equals("COMPLETED") || !(fields[9].trim().equals("PENDING")))
-                    {
-                        continue;
-                    }
-                    System.out.println("Appointment ID      : " + fields[0].replace("\"", "").trim());
-                    System.out.println("Patient ID          : " + fields[1].trim());
-                    System.out.println("Doctor ID           : " + fields[2].trim());
-                    System.out.println("Appointment Date and Time: " + fields[3].trim());
-                    System.out.println("Status              : " + fields[4].trim());
-                    System.out.println("Consultation Notes  : " + fields[5].trim());
-                    System.out.println("Service Provided    : " + fields[6].trim());
+import enums.AppointmentStatus;
+import enums.MedicationStatus;
+import models.Appointment;
+import services.AppointmentService;
 
+public class AppointmentOutcomeRecordView {
+    private final AppointmentService appointmentService; // Shared appointments, including changes not yet written to the CSV file
 
+    public AppointmentOutcomeRecordView(AppointmentService appointmentService) {
+        this.appointmentService = appointmentService;
+    }
 
-                    // Medications and quantities
-                    String medications = fields[7].trim();
-                    String quantities = fields[8].trim();
-
-                    if (!medications.isEmpty() && !quantities.isEmpty()) {
-                        String[] medicationList = medications.split(";"); // Split by semicolon for medications
-                        String[] quantityList = quantities.split(";"); // Split by pipe for quantities
-
-                        System.out.println("Medications:");
-                        for (int i = 0; i < medicationList.length; i++) {
-                            String medication = medicationList[i].trim();
-                            String quantity = (i < quantityList.length) ? quantityList[i].trim() : "N/A";
-
-                            System.out.println("- Name: " + medication);
-                            System.out.println("  Quantity: " + quantity);
-                        }
-                        System.out.println("Medication Status   : "+fields[9].trim());
-                    } else {
-                        System.out.println("Medications: No medications listed");
-                    }
-                    System.out.println("----------------------------------------");
-                    // Medication Status (Optional - If you need to print it)
-                    // System.out.println("Medication Status   : " + fields[9].trim());
-                } else {
-                    System.out.println("Warning: Skipping line due to unexpected format -> " + line);
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading file: " + e.getMessage());
+    public void loadAndPrintAppointments() {
+        for (Appointment appointment : getPendingOutcomes()) {
+            printAppointment(appointment);
         }
     }
-    
-    public boolean loadAndPrintPendingAppointments() {
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFilePath))) {
-            String line = br.readLine(); // Read the header line
-            boolean found=false;
-
-            while ((line = br.readLine()) != null) {
-                String[] fields = line.split(",");
-
-                if (fields.length == 10) {
-                    // Filter by PENDING medication status
-                    if (!fields[9].trim().equals("PENDING") || !(fields[4].trim().equals("COMPLETED"))) {
-                        continue;
-                    }
-                    found=true;
-                    // Print appointment details in the specified format
-                    System.out.println("Appointment ID      : " + fields[0].replace("\"", "").trim());
-                    System.out.println("Patient ID          : " + fields[1].trim());
-                    System.out.println("Doctor ID           : " + fields[2].trim());
-                    System.out.println("Appointment Date and Time: " + fields[3].trim());
-                    System.out.println("Status              : " + fields[4].trim());
-                    System.out.println("Consultation Notes  : " + fields[5].trim());
-                    System.out.println("Service Provided    : " + fields[6].trim());
-
-                    // Handle medications and quantities
-                    String medications = fields[7].trim();
-                    String quantities = fields[8].trim();
-
-                    if (!medications.isEmpty() && !quantities.isEmpty()) {
-                        String[] medicationList = medications.split(";");
-                        String[] quantityList = quantities.split(";");
 
-                        System.out.println("Medications:");
-                        for (int i = 0; i < medicationList.length; i++) {
-                            String medication = medicationList[i].trim();
-                            String quantity = (i < quantityList.length) ? quantityList[i].trim() : "N/A";
+    public boolean loadAndPrintPendingAppointments() {
+        List<Appointment> pendingOutcomes = getPendingOutcomes();
+        for (Appointment appointment : pendingOutcomes) {
+            printAppointment(appointment);
+        }
+        return !pendingOutcomes.isEmpty();
+    }
 
-                            System.out.println("- Name: " + medication);
-                            System.out.println("  Quantity: " + quantity);
-                        }
-                    } else {
-                        System.out.println("Medications: No medications listed");
-                    }
+    // Completed appointments whose medications have not been dispensed yet
+    private List<Appointment> getPendingOutcomes() {
+        return appointmentService.getAppointmentsByStatus(AppointmentStatus.COMPLETED).stream()
+                .filter(appointment -> appointment.getMedicationStatus() == MedicationStatus.PENDING)
+                .toList();
+    }
 
-                    System.out.println("Medication Status   : " + fields[9].trim());
-                    System.out.println("----------------------------------------");
-                } else {
-                    System.out.println("Warning: Skipping line due to unexpected format -> " + line);
-                }
+    private void printAppointment(Appointment appointment) {
+        System.out.println("Appointment ID      : " + appointment.getAppointmentId());
+        System.out.println("Patient ID          : " + appointment.getPatientId());
+        System.out.println("Doctor ID           : " + appointment.getDoctorId());
+        System.out.println("Appointment Date and Time: " + appointment.getAppointmentDateTime());
+        System.out.println("Status              : " + appointment.getStatus());
+        System.out.println("Consultation Notes  : " + appointment.getConsultationNotes());
+        System.out.println("Service Provided    : " + appointment.getServiceProvided());
+
+        // Medications and quantities
+        if (!appointment.getMedications().isEmpty() && !appointment.getQuantities().isEmpty()) {
+            System.out.println("Medications:");
+            for (int i = 0; i < appointment.getMedications().size(); i++) {
+                String quantity = i < appointment.getQuantities().size() ? String.valueOf(appointment.getQuantities().get(i)) : "N/A";
+                System.out.println("- Name: " + appointment.getMedications().get(i).getName().trim());
+                System.out.println("  Quantity: " + quantity);
             }
-            return found;
-        } catch (IOException e) {
-            System.err.println("Error reading file: " + e.getMessage());
-            return false;
+        } else {
+            System.out.println("Medications: No medications listed");
         }
-    }
-
 
-    public static void main(String[] args) {
-        AppointmentOutcomeRecordView view = new AppointmentOutcomeRecordView();
-        view.loadAndPrintAppointments();
+        System.out.println("Medication Status   : " + appointment.getMedicationStatus());
+        System.out.println("----------------------------------------");
     }
 }
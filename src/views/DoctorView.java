@@ -7,6 +7,7 @@ import models.Doctor;
 import controllers.DoctorController;
 import interfaces.IDoctorView;
 import models.User;
+import services.ApplicationContext;
 import services.AppointmentRequestService;
 import services.AppointmentService;
 import services.DoctorService;
@@ -48,7 +49,7 @@ public class DoctorView implements IDoctorView {
         this.medicalRecordService = medicalRecordService;
         this.doctorService = doctorService;
         this.scheduleService = scheduleService;
-        this.appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
+        this.appointmentRequestService = ApplicationContext.getInstance().getAppointmentRequestService();
     }
 
     /**
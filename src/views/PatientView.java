@@ -6,6 +6,7 @@ import models.User;
 import models.Billing;
 import controllers.PatientController;
 import controllers.BillingController;
+import services.ApplicationContext;
 import services.PatientService;
 import services.UserService;
 import models.Appointment;
@@ -29,7 +30,7 @@ public class PatientView implements iPatientView {
     }
 
     public void start(User user) {
-        PatientService patientService = new PatientService(userService);
+        PatientService patientService = ApplicationContext.getInstance().getPatientService();
         if (patientService.checkAndPromptPasswordChange(user.getHospitalID(), scanner)) {
             System.out.println("Proceeding after password change.");
         }
@@ -105,7 +106,7 @@ public class PatientView implements iPatientView {
         String contactInformation = scanner.nextLine().trim();
 
         Patient patient = new Patient(user, name, dateOfBirth, gender, bloodType, contactInformation);
-        new PatientService(userService).addPatient(patient);
+        ApplicationContext.getInstance().getPatientService().addPatient(patient);
         System.out.println("New patient registered successfully.");
     }
 
@@ -151,7 +152,8 @@ public class PatientView implements iPatientView {
 
             switch (choice) {
                 case 1 -> {
-                    List<Appointment> pendingPayments = billingController.getPendingPayments(patient.getAppointments());
+                    List<Appointment> pendingPayments = billingController.getPendingPayments(
+                            ApplicationContext.getInstance().getAppointmentService().getAppointmentsByPatient(patient.getHospitalID()));
                     if (pendingPayments.isEmpty()) {
                         System.out.println("No pending payments found.");
                     } else {
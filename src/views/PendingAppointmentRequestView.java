@@ -1,5 +1,6 @@
 package views;
 
+import services.ApplicationContext;
 import services.AppointmentRequestService;
 import services.ScheduleService;
 import services.AppointmentService;
@@ -21,7 +22,7 @@ public class PendingAppointmentRequestView {
      * @param appointmentService the service used to manage appointments
      */
     public PendingAppointmentRequestView(ScheduleService scheduleService, AppointmentService appointmentService) {
-        this.appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
+        this.appointmentRequestService = ApplicationContext.getInstance().getAppointmentRequestService();
     }
 
     /**
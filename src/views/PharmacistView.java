@@ -4,6 +4,7 @@ import controllers.PharmacistController;
 import interfaces.IPharmacistView;
 import models.Pharmacist;
 import models.User;
+import services.ApplicationContext;
 import services.PharmacistService;
 import services.UserService;
 import services.PatientService;
@@ -127,7 +128,7 @@ public class PharmacistView implements IPharmacistView {
 System.out.println("Appointments with Pending Medication Status:");
     	
 
-        AppointmentOutcomeRecordView appointmentOutcomeRecordView = new AppointmentOutcomeRecordView();
+        AppointmentOutcomeRecordView appointmentOutcomeRecordView = new AppointmentOutcomeRecordView(ApplicationContext.getInstance().getAppointmentService());
 		// Print pending appointments using AppointmentOutcomeRecordView
         boolean f=appointmentOutcomeRecordView.loadAndPrintPendingAppointments();
         if(f) {
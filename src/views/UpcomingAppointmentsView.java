@@ -3,6 +3,7 @@ package views;
 import services.ScheduleService;
 import models.Doctor;
 import models.Appointment;
+import services.ApplicationContext;
 import services.AppointmentService;
 import java.util.List;
 import java.util.ArrayList;
@@ -35,15 +36,15 @@ public class UpcomingAppointmentsView {
     public void displayUpcomingAppointments(Doctor doctor) {
         System.out.println("Displaying Upcoming Appointments for Doctor: " + doctor.getName() + " " + doctor.getHospitalID());
 
-        // Fetch all appointments
-        AppointmentService appointmentService = new AppointmentService();
-        List<Appointment> allAppointments = appointmentService.viewScheduledAppointments();
+        // Fetch the doctor's appointments
+        AppointmentService appointmentService = ApplicationContext.getInstance().getAppointmentService();
+        List<Appointment> allAppointments = appointmentService.getAppointmentsByDoctor(doctor.getHospitalID());
 
-        // Filter the appointments for the given doctor and confirmed status
+        // Filter the appointments for confirmed status
         List<Appointment> doctorAppointments = new ArrayList<>();
         for (Appointment appointment : allAppointments) {
-            // Check if the appointment matches the doctor's ID and is confirmed
-            if (appointment.getDoctorId().equals(doctor.getHospitalID()) && AppointmentStatus.CONFIRMED.equals(appointment.getStatus())) {
+            // Check if the appointment is confirmed
+            if (AppointmentStatus.CONFIRMED.equals(appointment.getStatus())) {
                 doctorAppointments.add(appointment);
             }
         }
@@ -6,21 +6,15 @@ import controllers.PharmacistController;
 import controllers.DoctorController;
 import enums.UserRole;
 import services.UserService;
+import services.ApplicationContext;
 import services.AppointmentService;
-import services.InventoryService;
 import services.PatientService;
 import services.ProjectAdminService;
-import services.ReplenishmentService;
-import models.Administrator;
 import services.PharmacistService;
 import services.DoctorService;
 import services.ScheduleService;
-import services.AppointmentRequestService;
 import services.MedicalRecordService;
 import controllers.BillingController;
-import services.BillingService;
-import stores.StaffDataStore;
-import stores.InventoryDataStore;
 import models.User;
 
 import java.io.IOException;
@@ -98,8 +92,6 @@ public class UserView {
             System.out.print("Enter Password: ");
             String password = scanner.nextLine();
 
-            userService.reloadUserData(); // Reload user data before login attempt
-
             if (userService.login(hospitalID, password)) {
                 loggedInHospitalID = hospitalID;
                 System.out.println("Login successful!");
@@ -140,10 +132,8 @@ public class UserView {
 
             if (response.equals("yes")) {
                 userService.saveToCSV(); // Ensure CSV sorted before exiting
-                // Save sorted staff list
-                StaffDataStore staffDataStore = new StaffDataStore();
-                staffDataStore.loadStaffFromCSV("data/Staff_List.csv");
-                staffDataStore.writeStaffToCSV("data/Staff_List.csv");
+                // Save the shared staff list, kept sorted by staff ID
+                ApplicationContext.getInstance().getStaffDataStore().writeStaffToCSV("data/Staff_List.csv");
                 return false; // Exit the loop and end the program
             } else if (response.equals("no")) {
                 System.out.println("Returning to main login screen...");
@@ -163,48 +153,15 @@ public class UserView {
     private void navigateToRoleSpecificPage(User user, UserRole role) {
         switch (role) {
             case PATIENT:
-                // Create necessary services for Patient role
-                AppointmentService appointmentService = new AppointmentService();
-                PatientService patientService = new PatientService(userService);
-                BillingService billingService=new BillingService();
-                BillingController billingController=new BillingController();
-                PatientController patientController = new PatientController(patientService, appointmentService);
-                PatientView patientView = new PatientView(patientController, userService,billingController);
-
-                System.out.println("Navigating to Patient view...");
-                System.out.println(SEPARATOR);
-                patientView.start(user);
+                navigateToPatientPage(user);
                 break;
 
             case DOCTOR:
-                // Create necessary services for Doctor role
-                ScheduleService scheduleService = new ScheduleService();
-                MedicalRecordService medicalRecordService = new MedicalRecordService();
-                appointmentService = new AppointmentService();
-                AppointmentRequestService appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
-                DoctorService doctorService = new DoctorService(userService, scheduleService, medicalRecordService, appointmentService);
-                DoctorController doctorController = new DoctorController(doctorService, scheduleService, medicalRecordService, appointmentService);
-                DoctorView doctorView = new DoctorView(doctorController, doctorService, userService, scheduleService, medicalRecordService, appointmentService);
-
-                System.out.println("Navigating to Doctor view...");
-                System.out.println(SEPARATOR);
-                doctorView.start(user);
+                navigateToDoctorPage(user);
                 break;
 
             case PHARMACIST:
-                // Create necessary services for Pharmacist role
-                InventoryDataStore inventoryDataStore = new InventoryDataStore();
-                InventoryService inventoryService = new InventoryService(inventoryDataStore);
-                ReplenishmentService replenishmentService = new ReplenishmentService();
-                appointmentService = new AppointmentService();
-                PharmacistService pharmacistService = new PharmacistService(userService, appointmentService, inventoryService);
-                patientService = new PatientService(userService);
-                PharmacistController pharmacistController = new PharmacistController(pharmacistService, inventoryService, appointmentService, replenishmentService);
-                PharmacistView pharmacistView = new PharmacistView(pharmacistController, pharmacistService, userService, patientService);
-
-                System.out.println("Navigating to Pharmacist view...");
-                System.out.println(SEPARATOR);
-                pharmacistView.start(user);
+                navigateToPharmacistPage(user);
                 break;
 
             case ADMINISTRATOR:
@@ -215,16 +172,18 @@ public class UserView {
             default:
                 System.out.println("Role not recognized.");
         }
+
+        // Write out pending appointment and schedule changes on logout
+        AppointmentService.flushAll();
+        ScheduleService.getInstance().flush();
     }
 
     private void navigateToPatientPage(User user) {
-        // Create the AppointmentService and PatientService instances
-        AppointmentService appointmentService = new AppointmentService();
-        PatientService patientService = new PatientService(userService);
+        // Use the shared services built at startup
+        ApplicationContext context = ApplicationContext.getInstance();
 
         // Instantiate PatientController
-        PatientController patientController = new PatientController(patientService, appointmentService);
-        BillingService billingService=new BillingService();
+        PatientController patientController = new PatientController(context.getPatientService(), context.getAppointmentService());
         BillingController billingController=new BillingController();
 
         // Instantiate PatientView
@@ -237,36 +196,29 @@ public class UserView {
     }
     
     private void navigateToPharmacistPage(User user) {
-        // Create the AppointmentService and PatientService instances
-        AppointmentService appointmentService = new AppointmentService();
-        InventoryDataStore inventoryDataStore = new InventoryDataStore();
-        InventoryService inventoryService = new InventoryService(inventoryDataStore);
-        PharmacistService pharmacistService = new PharmacistService(userService, appointmentService, inventoryService);
-        PatientService patientService = new PatientService(userService);
-        ReplenishmentService replenishmentService = new ReplenishmentService();
-        // Instantiate PatientController
-        PharmacistController pharmacistController = new PharmacistController(pharmacistService, inventoryService,appointmentService, replenishmentService);
+        // Use the shared services built at startup
+        ApplicationContext context = ApplicationContext.getInstance();
+        PharmacistService pharmacistService = context.getPharmacistService();
 
-        // Instantiate PatientView
-        PharmacistView pharmacistView = new PharmacistView(pharmacistController, pharmacistService, userService, patientService);
+        // Instantiate PharmacistController
+        PharmacistController pharmacistController = new PharmacistController(pharmacistService, context.getInventoryService(), context.getAppointmentService(), context.getReplenishmentService());
 
-        // Start the patient operations (menu)
+        // Instantiate PharmacistView
+        PharmacistView pharmacistView = new PharmacistView(pharmacistController, pharmacistService, userService, context.getPatientService());
+
+        // Start the pharmacist operations (menu)
         System.out.println("Navigating to Pharmacist view...");
         System.out.println(SEPARATOR);
         pharmacistView.start(user);
     }
 
     private void navigateToDoctorPage(User user) {
-        // Create the necessary services
-        ScheduleService scheduleService = new ScheduleService();
-
-        MedicalRecordService medicalRecordService = new MedicalRecordService();
-
-        AppointmentService appointmentService = new AppointmentService();
-
-        AppointmentRequestService appointmentRequestService = new AppointmentRequestService(scheduleService, appointmentService);
-
-        DoctorService doctorService = new DoctorService( userService,scheduleService,medicalRecordService, appointmentService);
+        // Use the shared services built at startup
+        ApplicationContext context = ApplicationContext.getInstance();
+        ScheduleService scheduleService = context.getScheduleService();
+        MedicalRecordService medicalRecordService = context.getMedicalRecordService();
+        AppointmentService appointmentService = context.getAppointmentService();
+        DoctorService doctorService = context.getDoctorService();
 
         // Instantiate DoctorController
         DoctorController doctorController = new DoctorController(doctorService,  scheduleService,  medicalRecordService, appointmentService);
@@ -282,19 +234,12 @@ public class UserView {
 
 
     private void navigateToAdministratorPage(User user) {
-        InventoryDataStore inventoryDataStore = new InventoryDataStore();
-        InventoryService inventoryService = new InventoryService(inventoryDataStore);
-        PatientService patientService = new PatientService(userService);
-        ProjectAdminService adminService = new ProjectAdminService(
-                new Administrator(user.getHospitalID(), user.getPassword(), null),
-                inventoryService,
-                userService,
-                patientService
-        );
-        AppointmentService appointmentService = new AppointmentService();
+        ApplicationContext context = ApplicationContext.getInstance();
+        PatientService patientService = context.getPatientService();
+        ProjectAdminService adminService = context.getProjectAdminService();
 
         AdministratorController adminController = new AdministratorController(
-                appointmentService,
+                context.getAppointmentService(),
                 adminService,
                 userService,
                 patientService